@@ -23,16 +23,22 @@
  */
 package org.jenkinsci.plugins.github.label.filter;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.console.HyperlinkNote;
+import hudson.model.Item;
+import hudson.model.TaskListener;
 import hudson.util.FormValidation;
+import jenkins.model.Jenkins;
 import jenkins.scm.api.SCMHeadCategory;
 import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceOwner;
 import jenkins.scm.api.trait.SCMHeadFilter;
 import jenkins.scm.api.trait.SCMSourceContext;
 import jenkins.scm.api.trait.SCMSourceTrait;
 import jenkins.scm.api.trait.SCMSourceTraitDescriptor;
 import jenkins.scm.impl.ChangeRequestSCMHeadCategory;
+import net.sf.json.JSONObject;
 import org.apache.commons.lang3.StringUtils;
 import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
 import org.jenkinsci.plugins.github_branch_source.GitHubSCMSourceContext;
@@ -42,13 +48,16 @@ import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.github.GHLabel;
 import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.HttpResponse;
 import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.interceptor.RequirePOST;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -60,13 +69,47 @@ public abstract class BaseGithubExtendedFilterTrait extends SCMSourceTrait {
 	private String labels;
 
 	/**
-	 * The label lists from from supplied labels string
+	 * The parsed labels, built once from the supplied labels string and shared by concurrent scans.
 	 */
-	private transient List<String> labelsAsList;
+	private transient LabelsConfiguration configuration;
 
+	/**
+	 * Read from older configurations only, as labels are read from the listed pull requests without any request.
+	 */
+	@Deprecated
+	private transient boolean parallelPrefetch;
+
+	/**
+	 * Whether labels are matched ignoring case.
+	 */
+	private boolean ignoreCase;
+
+	/**
+	 * Whether emojis and emoji shortcodes are ignored when matching labels.
+	 */
+	private boolean stripEmoji;
+
+	/**
+	 * A prefix ignored when matching labels.
+	 */
+	private String stripPrefix;
 
 	public BaseGithubExtendedFilterTrait(String labels) {
 		this.labels = labels;
+		configure();
+	}
+
+	protected Object readResolve() {
+		configure();
+		return this;
+	}
+
+	private void configure() {
+		LabelNormalizer normalizer = null;
+		if (ignoreCase || stripEmoji || StringUtils.isNotBlank(stripPrefix)) {
+			normalizer = new LabelNormalizer(ignoreCase, stripEmoji, StringUtils.trimToNull(stripPrefix));
+		}
+		configuration = LabelsConfiguration.parse(labels, normalizer);
 	}
 
 	/**
@@ -78,15 +121,88 @@ public abstract class BaseGithubExtendedFilterTrait extends SCMSourceTrait {
 		return labels;
 	}
 
+	/**
+	 * Gets whether labels are matched ignoring case.
+	 *
+	 * @return {@code true} if labels are matched ignoring case
+	 */
+	public boolean isIgnoreCase() {
+		return ignoreCase;
+	}
+
+	/**
+	 * Sets whether labels are matched ignoring case.
+	 *
+	 * @param ignoreCase {@code true} to match labels ignoring case
+	 */
+	@DataBoundSetter
+	public void setIgnoreCase(boolean ignoreCase) {
+		this.ignoreCase = ignoreCase;
+		configure();
+	}
+
+	/**
+	 * Gets whether emojis are ignored when matching labels.
+	 *
+	 * @return {@code true} if emojis are ignored
+	 */
+	public boolean isStripEmoji() {
+		return stripEmoji;
+	}
+
+	/**
+	 * Sets whether emojis are ignored when matching labels.
+	 *
+	 * @param stripEmoji {@code true} to ignore emojis
+	 */
+	@DataBoundSetter
+	public void setStripEmoji(boolean stripEmoji) {
+		this.stripEmoji = stripEmoji;
+		configure();
+	}
+
+	/**
+	 * Gets the prefix ignored when matching labels.
+	 *
+	 * @return the prefix or {@code null}
+	 */
+	public String getStripPrefix() {
+		return stripPrefix;
+	}
+
+	/**
+	 * Sets the prefix ignored when matching labels.
+	 *
+	 * @param stripPrefix the prefix, such as {@code "type:"}
+	 */
+	@DataBoundSetter
+	public void setStripPrefix(String stripPrefix) {
+		this.stripPrefix = StringUtils.trimToNull(stripPrefix);
+		configure();
+	}
+
+	/**
+	 * Checks whether a label is one of the configured labels.
+	 *
+	 * @param label the label name
+	 * @return {@code true} if configured
+	 */
+	public boolean refersTo(@NonNull String label) {
+		return configuration.matches(label);
+	}
+
 	protected List<String> getLabelsAsList() {
-		if (labelsAsList == null) {
-			labelsAsList = Optional.ofNullable(getLabels())
-					.filter(StringUtils::isNoneEmpty)
-					.map(labels -> labels.split("\\s*,\\s*"))
-					.map(Arrays::asList)
-					.orElse(Collections.emptyList());
-		}
-		return labelsAsList;
+		return configuration.getLabels();
+	}
+
+	/**
+	 * Gets the parsed labels.
+	 *
+	 * @return the immutable labels configuration
+	 */
+	@NonNull
+	LabelsConfiguration getConfiguration() {
+		return configuration;
 	}
 
 	/**
@@ -108,23 +224,180 @@ public abstract class BaseGithubExtendedFilterTrait extends SCMSourceTrait {
 		return category instanceof ChangeRequestSCMHeadCategory;
 	}
 
-	protected List<String> getPullRequestLabels(@NonNull GitHubSCMSourceRequest githubRequest, @NonNull PullRequestSCMHead pullRequestSCMHead) throws IOException {
-        Optional<GHPullRequest> pr = StreamSupport.stream(githubRequest.getPullRequests().spliterator(), false)
-                .filter(ghPullRequest -> ghPullRequest.getNumber() == pullRequestSCMHead.getNumber())
-                .findFirst();
-        if (pr.isPresent()) {
-            GHPullRequest ghPullRequest = pr.get();
-            List<String> labels = ghPullRequest.getLabels().stream().map(GHLabel::getName)
-                    .collect(Collectors.toList());
-            if (labels.isEmpty()) {
-                githubRequest.listener().getLogger().format("%n  Found %s. has no labels %n", HyperlinkNote.encodeTo(ghPullRequest.getHtmlUrl().toString(), "#" + ghPullRequest.getNumber()));
-            } else {
-                githubRequest.listener().getLogger().format("%n  Found %s. has labels \"%s\" %n", HyperlinkNote.encodeTo(ghPullRequest.getHtmlUrl().toString(), "#" + ghPullRequest.getNumber()), String.join(",", labels));
-            }
-            return labels;
-        } else {
-            return Collections.emptyList();
-        }
+	protected LabelSet getPullRequestLabels(@NonNull GitHubSCMSourceRequest githubRequest, @NonNull PullRequestSCMHead pullRequestSCMHead) throws IOException, InterruptedException {
+		GHPullRequest ghPullRequest = getPullRequest(githubRequest, pullRequestSCMHead);
+		if (ghPullRequest == null) {
+			return LabelSet.EMPTY;
+		}
+		return getPullRequestLabels(githubRequest, ghPullRequest);
+	}
+
+	/**
+	 * Gets the pull request of a head from the pull requests listed by the request.
+	 *
+	 * @param githubRequest      the request
+	 * @param pullRequestSCMHead the head
+	 * @return the pull request or {@code null} if it is not listed
+	 */
+	@CheckForNull
+	protected GHPullRequest getPullRequest(@NonNull GitHubSCMSourceRequest githubRequest, @NonNull PullRequestSCMHead pullRequestSCMHead) {
+		return StreamSupport.stream(githubRequest.getPullRequests().spliterator(), false)
+				.filter(candidate -> candidate.getNumber() == pullRequestSCMHead.getNumber())
+				.findFirst()
+				.orElse(null);
+	}
+
+	/**
+	 * Makes the filter decision of a pull request in a trace span and a flight recorder event.
+	 *
+	 * @param head    the head of the pull request
+	 * @param decider decides whether the pull request is excluded
+	 * @return {@code true} if the pull request is excluded
+	 */
+	protected final boolean decide(@NonNull PullRequestSCMHead head, @NonNull Decider decider) throws IOException, InterruptedException {
+		try (Tracing.Span span = Tracing.startFilterDecision(getClass(), head.getNumber())) {
+			long start = FlightRecorderEvents.startFilterDecision();
+			Decision decision = decider.decide();
+			FlightRecorderEvents.filterDecision(getClass(), head.getNumber(), decision.labelCount, decision.isExcluded(), start);
+			span.setAttribute("excluded", decision.isExcluded()).setAttribute("reason", decision.reason);
+			return decision.isExcluded();
+		}
+	}
+
+	/**
+	 * Gets the labels of a pull request listed by the request.
+	 *
+	 * @param githubRequest the request
+	 * @param ghPullRequest the pull request
+	 * @return the labels
+	 */
+	protected LabelSet getPullRequestLabels(@NonNull GitHubSCMSourceRequest githubRequest, @NonNull GHPullRequest ghPullRequest) throws IOException, InterruptedException {
+		LabelSet labels = fetchLabels(ghPullRequest, githubRequest.listener());
+		if (labels.isEmpty()) {
+			githubRequest.listener().getLogger().format("%n  Found %s. has no labels %n", HyperlinkNote.encodeTo(ghPullRequest.getHtmlUrl().toString(), "#" + ghPullRequest.getNumber()));
+		} else {
+			githubRequest.listener().getLogger().format("%n  Found %s. has labels \"%s\" %n", HyperlinkNote.encodeTo(ghPullRequest.getHtmlUrl().toString(), "#" + ghPullRequest.getNumber()), String.join(",", labels));
+		}
+		return labels;
+	}
+
+	/**
+	 * Gets the label names listed with a pull request, then stores them in the {@link LabelStore} for the build
+	 * strategy and the pipeline step. Webhook payloads never decide the labels a scan filters on.
+	 * When reading the labels fails or the {@link LabelsCircuitBreaker circuit breaker} of the GitHub API is open,
+	 * the last labels read from GitHub are used if recent enough, and the scan log says so.
+	 *
+	 * @param ghPullRequest the pull request
+	 * @param listener      the listener of the scan or {@code null}
+	 * @return the label names
+	 * @throws IOException          if the labels cannot be retrieved
+	 * @throws InterruptedException if interrupted while waiting for the labels
+	 */
+	static LabelSet fetchLabels(@NonNull GHPullRequest ghPullRequest, @CheckForNull TaskListener listener)
+			throws IOException, InterruptedException {
+		PullRequestKey key = PullRequestKey.of(ghPullRequest);
+		try (Tracing.Span span = Tracing.start("labels").setAttribute(Tracing.PULL_REQUEST, key)) {
+			long start = FlightRecorderEvents.startLabelLookup();
+			LabelSet labels;
+			if (key == null) {
+				labels = LabelSet.of(loadLabels(ghPullRequest));
+			} else {
+				try {
+					labels = LabelSet.of(LabelsCircuitBreaker.forHost(key.getHost()).call(() -> loadLabels(ghPullRequest)));
+				} catch (IOException e) {
+					span.setAttribute("source", "degraded");
+					return getDegradedLabels(key, listener, e);
+				}
+				Date updatedAt = ghPullRequest.getUpdatedAt();
+				if (updatedAt == null) {
+					LabelStore.get().put(key, labels, null);
+				} else {
+					LabelStore.get().update(key, labels, updatedAt);
+				}
+			}
+			FlightRecorderEvents.labelLookup(ghPullRequest.getHtmlUrl(), "listing", labels.size(), start);
+			span.setAttribute("source", "listing");
+			return labels;
+		}
+	}
+
+	/**
+	 * Gets the labels of a pull request when they cannot be read, from the labels last read from GitHub.
+	 */
+	private static LabelSet getDegradedLabels(PullRequestKey key, @CheckForNull TaskListener listener,
+											  IOException failure) throws IOException {
+		LabelSet labels = LabelStore.get().getLastKnown(key, LabelsCircuitBreaker.getMaxStalenessMillis());
+		if (labels == null) {
+			throw failure;
+		}
+		LabelsCircuitBreaker.degraded();
+		if (listener != null) {
+			listener.getLogger().format("%n  [degraded] Could not read the labels of #%d (%s), using the last known labels. "
+					+ "A later scan reconciles them.%n", key.getNumber(), failure.getMessage());
+		}
+		return labels;
+	}
+
+	/**
+	 * Loads the label names of a pull request, which may call the GitHub API.
+	 */
+	private static List<String> loadLabels(GHPullRequest ghPullRequest) throws IOException {
+		return ghPullRequest.getLabels().stream().map(GHLabel::getName)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Decides whether a pull request is excluded.
+	 */
+	@FunctionalInterface
+	protected interface Decider {
+
+		@NonNull
+		Decision decide() throws IOException, InterruptedException;
+	}
+
+	/**
+	 * The filter decision of a pull request.
+	 */
+	protected static final class Decision {
+
+		private final int labelCount;
+
+		@CheckForNull
+		private final String reason;
+
+		private Decision(int labelCount, @CheckForNull String reason) {
+			this.labelCount = labelCount;
+			this.reason = reason;
+		}
+
+		/**
+		 * Creates a decision.
+		 *
+		 * @param labelCount the number of labels of the pull request
+		 * @param reason     why the pull request is excluded or {@code null} if it is included
+		 * @return the decision
+		 */
+		@NonNull
+		protected static Decision of(int labelCount, @CheckForNull String reason) {
+			return new Decision(labelCount, reason);
+		}
+
+		/**
+		 * Creates a decision on the labels of a pull request.
+		 *
+		 * @param labels   the labels of the pull request
+		 * @param excluded whether the pull request is excluded
+		 * @return the decision
+		 */
+		@NonNull
+		protected static Decision of(@NonNull LabelSet labels, boolean excluded) {
+			return new Decision(labels.size(), excluded ? "labels" : null);
+		}
+
+		boolean isExcluded() {
+			return reason != null;
+		}
 	}
 
 	public static abstract class BaseDescriptorImpl extends SCMSourceTraitDescriptor {
@@ -161,6 +434,67 @@ public abstract class BaseGithubExtendedFilterTrait extends SCMSourceTrait {
 			}
 			return formValidation;
 		}
+
+		/**
+		 * Evaluates labels against the known pull requests of the item being configured and returns the result as JSON.
+		 * Nothing is fetched from GitHub nor scheduled.
+		 */
+		@RequirePOST
+		@Restricted(NoExternalUse.class)
+		public HttpResponse doSimulate(@AncestorInPath Item item, @QueryParameter String labels, @QueryParameter String labelsRule,
+				@QueryParameter boolean ignoreCase, @QueryParameter boolean stripEmoji, @QueryParameter String stripPrefix) {
+			JSONObject json = simulate(item, labels, labelsRule, ignoreCase, stripEmoji, stripPrefix).toJSON();
+			return (request, response, node) -> {
+				response.setContentType("application/json;charset=UTF-8");
+				response.getWriter().print(json.toString());
+			};
+		}
+
+		/**
+		 * Evaluates labels against the known pull requests of the item being configured and summarizes the result.
+		 * Nothing is fetched from GitHub nor scheduled.
+		 */
+		@RequirePOST
+		@Restricted(NoExternalUse.class)
+		public FormValidation doDryRun(@AncestorInPath Item item, @QueryParameter String labels, @QueryParameter String labelsRule,
+				@QueryParameter boolean ignoreCase, @QueryParameter boolean stripEmoji, @QueryParameter String stripPrefix) {
+			if (StringUtils.isBlank(labels)) {
+				return doCheckLabels(StringUtils.defaultString(labels));
+			}
+			return FormValidation.ok(simulate(item, labels, labelsRule, ignoreCase, stripEmoji, stripPrefix).getSummary());
+		}
+
+		/**
+		 * Creates a trait of this descriptor.
+		 *
+		 * @param labels     the labels
+		 * @param labelsRule the name of the {@link LabelsBranchBuildStrategy.Rule} matching the labels, for the traits
+		 *                   which let it be chosen, or {@code null}
+		 * @return the trait
+		 */
+		protected abstract BaseGithubExtendedFilterTrait createTrait(String labels, @CheckForNull String labelsRule);
+
+		private LabelsFilterSimulation simulate(@CheckForNull Item item, String labels, @CheckForNull String labelsRule,
+				boolean ignoreCase, boolean stripEmoji, String stripPrefix) {
+			if (item == null) {
+				Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+			} else {
+				item.checkPermission(Item.CONFIGURE);
+			}
+			BaseGithubExtendedFilterTrait trait = createTrait(labels, labelsRule);
+			trait.setIgnoreCase(ignoreCase);
+			trait.setStripEmoji(stripEmoji);
+			trait.setStripPrefix(stripPrefix);
+			List<GitHubSCMSource> sources = new ArrayList<>();
+			if (item instanceof SCMSourceOwner) {
+				for (SCMSource source : ((SCMSourceOwner) item).getSCMSources()) {
+					if (source instanceof GitHubSCMSource) {
+						sources.add((GitHubSCMSource) source);
+					}
+				}
+			}
+			return LabelsFilterSimulation.run((LabelsFilter) trait, sources);
+		}
 	}
 
 }
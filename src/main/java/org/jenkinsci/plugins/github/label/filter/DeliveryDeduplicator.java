@@ -0,0 +1,152 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jenkins.util.SystemProperties;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Recognizes webhook deliveries which were already received, such as GitHub redeliveries or proxy retries.
+ * <p>
+ * Deliveries are remembered as 64 bit fingerprints in two generations of Bloom filters:
+ * the current generation records deliveries and is checked along with the previous one,
+ * and the generations rotate when the current one is full or older than the window.
+ * A delivery is thus remembered for at least one window, in constant time and memory.
+ */
+final class DeliveryDeduplicator {
+
+	/**
+	 * The header GitHub identifies deliveries with.
+	 */
+	static final String DELIVERY_HEADER = "X-GitHub-Delivery";
+
+	private static final int HASHES = 4;
+
+	private static final int BITS_PER_DELIVERY = 64;
+
+	private final int capacity;
+
+	private final long windowMillis;
+
+	private final LongSupplier clock;
+
+	private final int mask;
+
+	private long[] current;
+
+	private long[] previous;
+
+	private int recorded;
+
+	private long rotatedAt;
+
+	private final AtomicLong accepted = new AtomicLong();
+
+	private final AtomicLong duplicates = new AtomicLong();
+
+	DeliveryDeduplicator() {
+		this(SystemProperties.getInteger(DeliveryDeduplicator.class.getName() + ".capacity", 10000),
+				TimeUnit.MINUTES.toMillis(SystemProperties.getInteger(DeliveryDeduplicator.class.getName() + ".windowMinutes", 60)),
+				System::currentTimeMillis);
+	}
+
+	DeliveryDeduplicator(int capacity, long windowMillis, @NonNull LongSupplier clock) {
+		this.capacity = capacity;
+		this.windowMillis = windowMillis;
+		this.clock = clock;
+		int bits = Integer.highestOneBit(Math.max(64, capacity * BITS_PER_DELIVERY - 1)) << 1;
+		this.mask = bits - 1;
+		this.current = new long[bits >>> 6];
+		this.previous = new long[bits >>> 6];
+		this.rotatedAt = clock.getAsLong();
+	}
+
+	/**
+	 * Records a delivery and tells whether it was already received.
+	 *
+	 * @param fingerprint the fingerprint of the delivery
+	 * @return {@code true} if the delivery is a duplicate
+	 */
+	synchronized boolean isDuplicate(long fingerprint) {
+		long now = clock.getAsLong();
+		if (recorded >= capacity || now - rotatedAt >= windowMillis) {
+			long[] recycled = previous;
+			previous = current;
+			current = recycled;
+			Arrays.fill(current, 0L);
+			recorded = 0;
+			rotatedAt = now;
+		}
+		if (contains(current, fingerprint) || contains(previous, fingerprint)) {
+			duplicates.incrementAndGet();
+			return true;
+		}
+		for (int i = 0; i < HASHES; i++) {
+			int bit = bit(fingerprint, i);
+			current[bit >>> 6] |= 1L << bit;
+		}
+		recorded++;
+		accepted.incrementAndGet();
+		return false;
+	}
+
+	private boolean contains(long[] filter, long fingerprint) {
+		for (int i = 0; i < HASHES; i++) {
+			int bit = bit(fingerprint, i);
+			if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Derives the bits of a fingerprint by double hashing its halves, the second one made odd to span all the bits.
+	 */
+	private int bit(long fingerprint, int i) {
+		return ((int) fingerprint + i * ((int) (fingerprint >>> 32) | 1)) & mask;
+	}
+
+	/**
+	 * Gets the number of deliveries which were not duplicates.
+	 *
+	 * @return the number of deliveries
+	 */
+	long getAccepted() {
+		return accepted.get();
+	}
+
+	/**
+	 * Gets the number of duplicate deliveries.
+	 *
+	 * @return the number of duplicates
+	 */
+	long getDuplicates() {
+		return duplicates.get();
+	}
+
+	/**
+	 * Computes the fingerprint of a delivery from its identifier or, when unknown, from its payload.
+	 *
+	 * @param deliveryId the delivery identifier or {@code null}
+	 * @param payload    the payload
+	 * @return the fingerprint
+	 */
+	static long fingerprint(@CheckForNull String deliveryId, @NonNull String payload) {
+		String value = deliveryId == null || deliveryId.isEmpty() ? "payload:" + payload : "delivery:" + deliveryId;
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+			return ByteBuffer.wrap(digest).getLong();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.Queue;
+import hudson.model.Result;
+import jenkins.model.CauseOfInterruption;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMHead;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cancels the queued builds and aborts the running builds of a pull request that its labels just excluded,
+ * instead of letting them hold executors until the next scan removes its branch project.
+ * Each abort is logged by the {@code org.jenkinsci.plugins.github.label.filter.ExcludedBuildsAborter.audit} logger
+ * and the aborted builds show the {@link ExcludedPullRequestInterruption}.
+ * As webhook payloads are not authenticated, the labels which abort builds are read again from the GitHub API
+ * with {@link #readLabels(GitHubSCMSource, int)}.
+ */
+class ExcludedBuildsAborter {
+	private static final Logger LOGGER = Logger.getLogger(ExcludedBuildsAborter.class.getName());
+
+	private static final Logger AUDIT = Logger.getLogger(ExcludedBuildsAborter.class.getName() + ".audit");
+
+	/**
+	 * Cancels the queued builds and aborts the running builds of a pull request.
+	 *
+	 * @param project     the project
+	 * @param pullRequest the pull request number
+	 * @param labels      the labels which excluded the pull request
+	 * @return the number of builds cancelled or aborted
+	 */
+	int abort(@NonNull WorkflowMultiBranchProject project, int pullRequest, @NonNull Collection<String> labels) {
+		List<WorkflowJob> jobs = getJobs(project, pullRequest);
+		if (jobs.isEmpty()) {
+			LOGGER.log(Level.FINE, "{0} has no branch project for pull request #{1}", new Object[]{project.getFullName(), pullRequest});
+			return 0;
+		}
+		ExcludedPullRequestInterruption cause = new ExcludedPullRequestInterruption(pullRequest, labels);
+		int count = 0;
+		for (WorkflowJob job : jobs) {
+			int cancelled = 0;
+			for (Queue.Item item : getQueuedBuilds(job)) {
+				if (cancel(item)) {
+					cancelled++;
+				}
+			}
+			List<String> aborted = new ArrayList<>();
+			for (Executor executor : getRunningBuilds(job)) {
+				aborted.add(String.valueOf(executor.getCurrentExecutable()));
+				executor.interrupt(Result.ABORTED, cause);
+			}
+			if (cancelled > 0 || !aborted.isEmpty()) {
+				AUDIT.log(Level.INFO, "Pull request #{0} of {1} is excluded by its labels {2}: cancelled {3} queued builds, aborted {4}",
+						new Object[]{pullRequest, job.getFullName(), labels, cancelled, aborted});
+			}
+			count += cancelled + aborted.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Reads the current labels of a pull request from the GitHub API, with the scan credentials of a source,
+	 * and updates the stored labels.
+	 *
+	 * @param source      the source
+	 * @param pullRequest the pull request number
+	 * @return the labels or {@code null} if the pull request is not open
+	 * @throws IOException if the labels could not be read
+	 */
+	@CheckForNull
+	Collection<String> readLabels(@NonNull GitHubSCMSource source, int pullRequest) throws IOException {
+		PullRequestKey key = PullRequestKey.of(source, pullRequest);
+		GitHubLabelsClient client = GitHubLabelsClient.forSource(source);
+		return LabelsCircuitBreaker.forHost(key.getHost()).call(() -> LabelStoreWarmup.refresh(LabelStore.get(), source, key, client));
+	}
+
+	/**
+	 * Gets the branch projects of a pull request, whatever their name, such as the merge and head projects
+	 * built by the pull request discovery strategies.
+	 *
+	 * @param project     the project
+	 * @param pullRequest the pull request number
+	 * @return the branch projects
+	 */
+	@NonNull
+	List<WorkflowJob> getJobs(@NonNull WorkflowMultiBranchProject project, int pullRequest) {
+		List<WorkflowJob> jobs = new ArrayList<>();
+		for (WorkflowJob job : project.getItems()) {
+			SCMHead head = getHead(job);
+			if (head instanceof PullRequestSCMHead && ((PullRequestSCMHead) head).getNumber() == pullRequest) {
+				jobs.add(job);
+			}
+		}
+		return jobs;
+	}
+
+	/**
+	 * Gets the head a branch project builds.
+	 *
+	 * @param job the branch project
+	 * @return the head or {@code null} if unknown
+	 */
+	@CheckForNull
+	SCMHead getHead(@NonNull WorkflowJob job) {
+		return SCMHead.HeadByItem.findHead(job);
+	}
+
+	/**
+	 * Gets the queued builds of a job.
+	 *
+	 * @param job the job
+	 * @return the queue items
+	 */
+	@NonNull
+	List<Queue.Item> getQueuedBuilds(@NonNull WorkflowJob job) {
+		Jenkins jenkins = Jenkins.getInstanceOrNull();
+		return jenkins == null ? Collections.emptyList() : jenkins.getQueue().getItems(job);
+	}
+
+	/**
+	 * Cancels a queued build.
+	 *
+	 * @param item the queue item
+	 * @return {@code true} if it was cancelled
+	 */
+	boolean cancel(@NonNull Queue.Item item) {
+		Jenkins jenkins = Jenkins.getInstanceOrNull();
+		return jenkins != null && jenkins.getQueue().cancel(item);
+	}
+
+	/**
+	 * Gets the executors running builds of a job.
+	 *
+	 * @param job the job
+	 * @return the executors
+	 */
+	@NonNull
+	List<Executor> getRunningBuilds(@NonNull WorkflowJob job) {
+		Jenkins jenkins = Jenkins.getInstanceOrNull();
+		if (jenkins == null) {
+			return Collections.emptyList();
+		}
+		List<Executor> executors = new ArrayList<>();
+		for (Computer computer : jenkins.getComputers()) {
+			for (Executor executor : computer.getAllExecutors()) {
+				Queue.Executable executable = executor.getCurrentExecutable();
+				if (executable != null && executable.getParent() == job) {
+					executors.add(executor);
+				}
+			}
+		}
+		return executors;
+	}
+
+	/**
+	 * Records that a build was aborted because the labels of its pull request excluded it.
+	 */
+	static class ExcludedPullRequestInterruption extends CauseOfInterruption {
+		private static final long serialVersionUID = 1L;
+
+		private final int pullRequest;
+
+		private final String labels;
+
+		ExcludedPullRequestInterruption(int pullRequest, Collection<String> labels) {
+			this.pullRequest = pullRequest;
+			this.labels = String.join(", ", labels);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getShortDescription() {
+			return "Aborted because the labels of pull request #" + pullRequest + " exclude it: " + labels;
+		}
+	}
+}
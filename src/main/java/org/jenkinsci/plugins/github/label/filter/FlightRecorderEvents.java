@@ -0,0 +1,238 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Emits JDK Flight Recorder events for filter decisions, label lookups and webhook events.
+ * <p>
+ * The events are disabled by default. They are enabled by a recording whose settings enable them, for instance
+ * {@code jcmd <pid> JFR.start settings=labels.jfc} with a copy of {@code default.jfc} enabling the
+ * {@code org.jenkinsci.plugins.github.label.filter.*} events, without restarting Jenkins.
+ * While they are disabled, instrumented code only checks a flag and does not read the clock.
+ * On runtimes without Flight Recorder nothing is emitted.
+ */
+final class FlightRecorderEvents {
+	private static final Logger LOGGER = Logger.getLogger(FlightRecorderEvents.class.getName());
+
+	static final String JFR_RECORDER = FlightRecorderEvents.class.getPackage().getName() + ".JfrRecorder";
+
+	@CheckForNull
+	private static final Recorder RECORDER = createRecorder(JFR_RECORDER);
+
+	private static final ThreadLocal<WebhookTimings> WEBHOOK = new ThreadLocal<>();
+
+	private FlightRecorderEvents() {
+	}
+
+	/**
+	 * Gets the start of a filter decision.
+	 *
+	 * @return the start in nanoseconds or {@code 0} if the event is disabled
+	 */
+	static long startFilterDecision() {
+		return RECORDER != null && RECORDER.isFilterDecisionEnabled() ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Emits a filter decision event.
+	 *
+	 * @param trait       the trait class
+	 * @param pullRequest the pull request number
+	 * @param labelCount  the number of labels of the pull request
+	 * @param excluded    whether the pull request was excluded
+	 * @param start       the value of {@link #startFilterDecision()}
+	 */
+	static void filterDecision(@NonNull Class<?> trait, int pullRequest, int labelCount, boolean excluded, long start) {
+		if (start != 0 && RECORDER != null) {
+			RECORDER.filterDecision(trait.getSimpleName(), pullRequest, labelCount, excluded, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Gets the start of a label lookup.
+	 *
+	 * @return the start in nanoseconds or {@code 0} if the event is disabled
+	 */
+	static long startLabelLookup() {
+		return RECORDER != null && RECORDER.isLabelLookupEnabled() ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Emits a label lookup event.
+	 *
+	 * @param pullRequest the pull request
+	 * @param source      where the labels came from, such as {@code listing}
+	 * @param labelCount  the number of labels
+	 * @param start       the value of {@link #startLabelLookup()}
+	 */
+	static void labelLookup(@CheckForNull Object pullRequest, @NonNull String source, int labelCount, long start) {
+		if (start != 0 && RECORDER != null) {
+			RECORDER.labelLookup(String.valueOf(pullRequest), source, labelCount, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Starts timing the handling of a webhook event on the current thread.
+	 *
+	 * @return the timings or {@code null} if the event is disabled
+	 */
+	@CheckForNull
+	static WebhookTimings startWebhook() {
+		if (RECORDER == null || !RECORDER.isWebhookEnabled()) {
+			return null;
+		}
+		WebhookTimings timings = new WebhookTimings();
+		WEBHOOK.set(timings);
+		return timings;
+	}
+
+	/**
+	 * Gets the timings of the webhook event handled by the current thread.
+	 *
+	 * @return the timings or {@code null} if the event is disabled
+	 */
+	@CheckForNull
+	static WebhookTimings currentWebhook() {
+		return RECORDER == null ? null : WEBHOOK.get();
+	}
+
+	/**
+	 * Hands the timings of the webhook event handled by the current thread over to the thread which finishes handling
+	 * it, and which passes them along then ends them with {@link #endHandedOffWebhook}.
+	 *
+	 * @return the timings or {@code null} if the event is disabled
+	 */
+	@CheckForNull
+	static WebhookTimings handOffWebhook() {
+		WebhookTimings timings = currentWebhook();
+		if (timings != null) {
+			WEBHOOK.remove();
+			timings.handedOff = true;
+		}
+		return timings;
+	}
+
+	/**
+	 * Emits a webhook event, unless its timings were handed off to another thread.
+	 *
+	 * @param timings the value of {@link #startWebhook()}
+	 * @param event   the GitHub event
+	 */
+	static void endWebhook(@CheckForNull WebhookTimings timings, @CheckForNull Object event) {
+		if (timings == null || RECORDER == null) {
+			return;
+		}
+		WEBHOOK.remove();
+		if (!timings.handedOff) {
+			emitWebhook(timings, event);
+		}
+	}
+
+	/**
+	 * Emits a webhook event whose timings were handed off.
+	 *
+	 * @param timings the value of {@link #handOffWebhook()}
+	 * @param event   the GitHub event
+	 */
+	static void endHandedOffWebhook(@CheckForNull WebhookTimings timings, @CheckForNull Object event) {
+		if (timings != null) {
+			emitWebhook(timings, event);
+		}
+	}
+
+	private static void emitWebhook(WebhookTimings timings, @CheckForNull Object event) {
+		if (RECORDER != null) {
+			RECORDER.webhook(String.valueOf(event), timings.action, timings.repository, timings.parse, timings.routing,
+					timings.dispatch, System.nanoTime() - timings.start, timings.projects, timings.scheduled);
+		}
+	}
+
+	/**
+	 * Loads a recorder, which cannot be loaded by runtimes without Flight Recorder or older than Java 11.
+	 *
+	 * @param className the name of the recorder class
+	 * @return the recorder or {@code null} if it cannot be loaded
+	 */
+	@CheckForNull
+	static Recorder createRecorder(@NonNull String className) {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return (Recorder) Class.forName(className).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			LOGGER.log(Level.FINE, "Flight Recorder is not available, no event will be emitted", e);
+			return null;
+		}
+	}
+
+	/**
+	 * The phases of the handling of a webhook event.
+	 */
+	static final class WebhookTimings {
+
+		private final long start = System.nanoTime();
+
+		private long mark = start;
+
+		private String action;
+
+		private String repository;
+
+		private long parse;
+
+		private long routing;
+
+		private long dispatch;
+
+		private int projects;
+
+		private int scheduled;
+
+		private volatile boolean handedOff;
+
+		private long lap() {
+			long now = System.nanoTime();
+			long elapsed = now - mark;
+			mark = now;
+			return elapsed;
+		}
+
+		void parsed(String action, String repository) {
+			this.parse += lap();
+			this.action = action;
+			this.repository = repository;
+		}
+
+		void routed(int projects) {
+			this.routing += lap();
+			this.projects += projects;
+		}
+
+		void dispatched(int scheduled) {
+			this.dispatch += lap();
+			this.scheduled += scheduled;
+		}
+	}
+
+	/**
+	 * Emits the events, implemented by {@code JfrRecorder} where Flight Recorder is available.
+	 */
+	interface Recorder {
+
+		boolean isFilterDecisionEnabled();
+
+		void filterDecision(String trait, int pullRequest, int labelCount, boolean excluded, long elapsed);
+
+		boolean isLabelLookupEnabled();
+
+		void labelLookup(String pullRequest, String source, int labelCount, long elapsed);
+
+		boolean isWebhookEnabled();
+
+		void webhook(String event, String action, String repository, long parse, long routing, long dispatch,
+					 long elapsed, int projects, int scheduled);
+	}
+}
@@ -0,0 +1,258 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import com.cloudbees.plugins.credentials.common.StandardCredentials;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.jenkinsci.plugins.github_branch_source.Connector;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.kohsuke.github.GHException;
+import org.kohsuke.github.GHIssue;
+import org.kohsuke.github.GHIssueEvent;
+import org.kohsuke.github.GHIssueState;
+import org.kohsuke.github.GHLabel;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Lists pull requests with their labels, and label events, from the GitHub API with the client the branch source
+ * connects with, so any scan credentials work, and its HTTP cache revalidates unchanged pages with their {@code ETag}.
+ * Open pull requests are listed through the issues endpoint, which returns labels along with each pull request,
+ * 100 per page, so a repository is listed without requesting labels pull request by pull request.
+ */
+class GitHubLabelsClient {
+
+	private static final int PAGE_SIZE = 100;
+
+	/**
+	 * The maximum number of pages of a listing.
+	 */
+	private static final int MAX_PAGES = 50;
+
+	private final GitHub github;
+
+	GitHubLabelsClient(@NonNull GitHub github) {
+		this.github = github;
+	}
+
+	/**
+	 * Creates a client connected with the scan credentials of a source, like its scans.
+	 * The client is anonymous only if the source has no credentials.
+	 *
+	 * @param source the source
+	 * @return the client
+	 * @throws IOException if the credentials of the source cannot be found or used
+	 */
+	@NonNull
+	static GitHubLabelsClient forSource(@NonNull GitHubSCMSource source) throws IOException {
+		String credentialsId = source.getCredentialsId();
+		StandardCredentials credentials = Connector.lookupScanCredentials(source.getOwner(), source.getApiUri(), credentialsId);
+		if (credentialsId != null && credentials == null) {
+			throw new IOException("The scan credentials " + credentialsId + " of " + source.getRepoOwner() + "/"
+					+ source.getRepository() + " cannot be found");
+		}
+		return new GitHubLabelsClient(Connector.connect(source.getApiUri(), credentials));
+	}
+
+	/**
+	 * Lists the open pull requests of a repository with their labels.
+	 *
+	 * @param owner      the repository owner
+	 * @param repository the repository name
+	 * @return the pull requests
+	 * @throws IOException if the request failed
+	 */
+	@NonNull
+	List<ListedPullRequest> listOpenPullRequests(@NonNull String owner, @NonNull String repository) throws IOException {
+		List<ListedPullRequest> pullRequests = new ArrayList<>();
+		int read = 0;
+		try {
+			for (GHIssue issue : getRepository(owner, repository).listIssues(GHIssueState.OPEN).withPageSize(PAGE_SIZE)) {
+				if (++read > MAX_PAGES * PAGE_SIZE) {
+					break;
+				}
+				if (issue.isPullRequest()) {
+					pullRequests.add(toPullRequest(issue));
+				}
+			}
+		} catch (GHException e) {
+			throw unwrap(e);
+		}
+		return pullRequests;
+	}
+
+	/**
+	 * Gets an open pull request of a repository with its labels, through the issues endpoint.
+	 *
+	 * @param owner      the repository owner
+	 * @param repository the repository name
+	 * @param number     the pull request number
+	 * @return the pull request or {@code null} if it is not found, not a pull request or not open
+	 * @throws IOException if the request failed
+	 */
+	@CheckForNull
+	ListedPullRequest getOpenPullRequest(@NonNull String owner, @NonNull String repository, int number) throws IOException {
+		GHIssue issue;
+		try {
+			issue = getRepository(owner, repository).getIssue(number);
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+		return issue.isPullRequest() && issue.getState() == GHIssueState.OPEN ? toPullRequest(issue) : null;
+	}
+
+	/**
+	 * Lists the label events of the pull requests of a repository newer than a cursor, from the issue events feed,
+	 * newest first. Pages are read until the cursor is reached; without a cursor, only the first page is read.
+	 *
+	 * @param owner      the repository owner
+	 * @param repository the repository name
+	 * @param cursor     the identifier of the newest event already seen, or {@code -1} for none
+	 * @return the events
+	 * @throws IOException if the request failed
+	 */
+	@NonNull
+	IssueEvents listIssueEvents(@NonNull String owner, @NonNull String repository, long cursor) throws IOException {
+		List<IssueEvent> events = new ArrayList<>();
+		long newest = cursor;
+		int read = 0;
+		int maxEvents = (cursor < 0 ? 1 : MAX_PAGES) * PAGE_SIZE;
+		try {
+			for (GHIssueEvent event : getRepository(owner, repository).listIssueEvents().withPageSize(PAGE_SIZE)) {
+				if (event.getId() <= cursor || ++read > maxEvents) {
+					break;
+				}
+				newest = Math.max(newest, event.getId());
+				GHIssue issue = event.getIssue();
+				String type = event.getEvent();
+				if (issue == null || !issue.isPullRequest() || !("labeled".equals(type) || "unlabeled".equals(type))) {
+					continue;
+				}
+				events.add(new IssueEvent(event.getId(), type, toPullRequest(issue)));
+			}
+		} catch (GHException e) {
+			throw unwrap(e);
+		}
+		return new IssueEvents(events, newest);
+	}
+
+	private GHRepository getRepository(String owner, String repository) throws IOException {
+		return github.getRepository(owner + "/" + repository);
+	}
+
+	private static ListedPullRequest toPullRequest(GHIssue issue) throws IOException {
+		List<String> labels = issue.getLabels().stream().map(GHLabel::getName).collect(Collectors.toList());
+		return new ListedPullRequest(issue.getNumber(), labels, issue.getUpdatedAt());
+	}
+
+	/**
+	 * Gets the failure of a page request, which paged listings report unchecked.
+	 */
+	private static IOException unwrap(GHException e) {
+		return e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getMessage(), e);
+	}
+
+	/**
+	 * A pull request with its labels.
+	 */
+	static final class ListedPullRequest {
+
+		private final int number;
+
+		private final List<String> labels;
+
+		private final Date updatedAt;
+
+		ListedPullRequest(int number, @NonNull List<String> labels, @NonNull Date updatedAt) {
+			this.number = number;
+			this.labels = labels;
+			this.updatedAt = updatedAt;
+		}
+
+		int getNumber() {
+			return number;
+		}
+
+		@NonNull
+		List<String> getLabels() {
+			return labels;
+		}
+
+		@NonNull
+		Date getUpdatedAt() {
+			return updatedAt;
+		}
+	}
+
+	/**
+	 * The label events of the pull requests of a repository.
+	 */
+	static final class IssueEvents {
+
+		private final List<IssueEvent> events;
+
+		private final long cursor;
+
+		IssueEvents(@NonNull List<IssueEvent> events, long cursor) {
+			this.events = events;
+			this.cursor = cursor;
+		}
+
+		/**
+		 * Gets the events, newest first.
+		 *
+		 * @return the events
+		 */
+		@NonNull
+		List<IssueEvent> getEvents() {
+			return events;
+		}
+
+		/**
+		 * Gets the identifier of the newest event seen, to pass to the next request.
+		 *
+		 * @return the identifier
+		 */
+		long getCursor() {
+			return cursor;
+		}
+	}
+
+	/**
+	 * A label event of a pull request, with the labels of the pull request at the time of the request.
+	 */
+	static final class IssueEvent {
+
+		private final long id;
+
+		private final String type;
+
+		private final ListedPullRequest pullRequest;
+
+		IssueEvent(long id, @NonNull String type, @NonNull ListedPullRequest pullRequest) {
+			this.id = id;
+			this.type = type;
+			this.pullRequest = pullRequest;
+		}
+
+		long getId() {
+			return id;
+		}
+
+		@NonNull
+		String getType() {
+			return type;
+		}
+
+		@NonNull
+		ListedPullRequest getPullRequest() {
+			return pullRequest;
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Caches labels on the heap of the controller, the default.
+ */
+public class HeapLabelCacheBackend extends LabelCacheBackend {
+
+	@DataBoundConstructor
+	public HeapLabelCacheBackend() {
+	}
+
+	@NonNull
+	@Override
+	LabelStorage createStorage() {
+		return new HeapLabelStorage();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o != null && o.getClass() == getClass();
+	}
+
+	@Override
+	public int hashCode() {
+		return getClass().hashCode();
+	}
+
+	@Extension(ordinal = 100)
+	@Symbol("heap")
+	public static class DescriptorImpl extends LabelCacheBackendDescriptor {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@NonNull
+		@Override
+		public String getDisplayName() {
+			return "In memory";
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jenkins.util.SystemProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps the entries of a {@link LabelStore} on the heap. The number of entries is bounded and entries expire
+ * some time after they were written.
+ */
+final class HeapLabelStorage implements LabelStorage {
+
+	/**
+	 * The maximum number of entries, set by the {@code LabelStore.maxEntries} system property.
+	 */
+	static final int MAX_ENTRIES = SystemProperties.getInteger(LabelStore.class.getName() + ".maxEntries", 100000);
+
+	/**
+	 * How long entries are kept, set by the {@code LabelStore.expireAfterWriteMinutes} system property.
+	 */
+	static final int EXPIRE_AFTER_WRITE_MINUTES = SystemProperties.getInteger(
+			LabelStore.class.getName() + ".expireAfterWriteMinutes", 60);
+
+	private final Cache<PullRequestKey, LabelStore.Entry> entries;
+
+	HeapLabelStorage() {
+		this(MAX_ENTRIES, EXPIRE_AFTER_WRITE_MINUTES);
+	}
+
+	HeapLabelStorage(long maxEntries, long expireAfterWriteMinutes) {
+		this.entries = CacheBuilder.newBuilder()
+				.maximumSize(maxEntries)
+				.expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+				.build();
+	}
+
+	@CheckForNull
+	@Override
+	public LabelStore.Entry get(@NonNull PullRequestKey key) {
+		return entries.getIfPresent(key);
+	}
+
+	@Override
+	public void put(@NonNull PullRequestKey key, @NonNull LabelStore.Entry entry) {
+		entries.put(key, entry);
+	}
+
+	@CheckForNull
+	@Override
+	public LabelStore.Entry compute(@NonNull PullRequestKey key, @NonNull UnaryOperator<LabelStore.Entry> function) {
+		return entries.asMap().compute(key, (k, cached) -> function.apply(cached));
+	}
+
+	@Override
+	public void invalidate(@NonNull PullRequestKey key) {
+		entries.invalidate(key);
+	}
+
+	@Override
+	public void forEach(@NonNull BiConsumer<PullRequestKey, LabelStore.Entry> action) {
+		entries.asMap().forEach(action);
+	}
+
+	@Override
+	public long size() {
+		return entries.size();
+	}
+}
@@ -0,0 +1,140 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import com.cloudbees.hudson.plugins.folder.computed.ComputedFolder;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.Queue;
+import hudson.model.Result;
+import jenkins.model.CauseOfInterruption;
+import jenkins.model.Jenkins;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Schedules the indexing of the projects affected by a label change.
+ * All the projects of a batch are enqueued under a single queue lock with the shared {@link LabelsChangedCause}.
+ * What happens to a project whose indexing is already running depends on the
+ * {@link LabeledFilterWebHookTrigger#getRunningScanPolicy() policy} of its trigger.
+ */
+class IndexingDispatcher {
+	private static final Logger LOGGER = Logger.getLogger(IndexingDispatcher.class.getName());
+
+	/**
+	 * Schedules the indexing of projects, skipping the ones which already have an indexing waiting in the queue.
+	 *
+	 * @param projects     the projects to index
+	 * @param pullRequests the numbers of the pull requests whose labels changed
+	 * @return the projects which were scheduled
+	 */
+	@NonNull
+	List<ComputedFolder<?>> dispatch(@NonNull Collection<? extends ComputedFolder<?>> projects,
+									 @NonNull Collection<Integer> pullRequests) {
+		List<ComputedFolder<?>> scheduled = new ArrayList<>();
+		Queue.withLock(() -> {
+			for (ComputedFolder<?> project : new LinkedHashSet<>(projects)) {
+				if (isQueued(project)) {
+					LOGGER.log(Level.FINE, "Indexing of {0} is already queued, it will read the labels of pull requests {1}",
+							new Object[]{project.getFullName(), pullRequests});
+					continue;
+				}
+				Executor running = getRunningIndexing(project);
+				if (running != null && !onRunningIndexing(project, running)) {
+					continue;
+				}
+				if (project.scheduleBuild(LabelsChangedCause.INSTANCE)) {
+					scheduled.add(project);
+				}
+			}
+		});
+		return scheduled;
+	}
+
+	/**
+	 * Applies the running scan policy of a project.
+	 *
+	 * @return {@code true} if a scan should be queued
+	 */
+	private boolean onRunningIndexing(ComputedFolder<?> project, Executor running) {
+		LabeledFilterWebHookTrigger trigger = LabeledFilterWebHookTrigger.of(project);
+		LabeledFilterWebHookTrigger.RunningScanPolicy policy = trigger == null
+				? LabeledFilterWebHookTrigger.RunningScanPolicy.FOLLOW_UP
+				: trigger.getRunningScanPolicy();
+		switch (policy) {
+			case MERGE:
+				LOGGER.log(Level.FINE, "Indexing of {0} is running, dropping the label change", project.getFullName());
+				return false;
+			case CANCEL_STALE:
+				long elapsed = TimeUnit.MILLISECONDS.toSeconds(running.getElapsedTime());
+				if (elapsed > trigger.getStaleScanSeconds()) {
+					LOGGER.log(Level.INFO, "Aborting the indexing of {0} running for {1} seconds",
+							new Object[]{project.getFullName(), elapsed});
+					running.interrupt(Result.ABORTED, new StaleScanInterruption());
+				}
+				return true;
+			default:
+				return true;
+		}
+	}
+
+	/**
+	 * Checks whether an indexing of a project is waiting in the queue.
+	 *
+	 * @param project the project
+	 * @return {@code true} if an indexing is queued
+	 */
+	boolean isQueued(@NonNull ComputedFolder<?> project) {
+		return getQueuedItem(project) != null;
+	}
+
+	/**
+	 * Gets the executor running the indexing of a project.
+	 *
+	 * @param project the project
+	 * @return the executor or {@code null} if the project is not being indexed
+	 */
+	@CheckForNull
+	Executor getRunningIndexing(@NonNull ComputedFolder<?> project) {
+		Jenkins jenkins = Jenkins.getInstanceOrNull();
+		if (jenkins == null) {
+			return null;
+		}
+		for (Computer computer : jenkins.getComputers()) {
+			for (Executor executor : computer.getAllExecutors()) {
+				Queue.Executable executable = executor.getCurrentExecutable();
+				if (executable != null && executable.getParent() == project) {
+					return executor;
+				}
+			}
+		}
+		return null;
+	}
+
+	@CheckForNull
+	private static Queue.Item getQueuedItem(ComputedFolder<?> project) {
+		Jenkins jenkins = Jenkins.getInstanceOrNull();
+		return jenkins == null ? null : jenkins.getQueue().getItem(project);
+	}
+
+	/**
+	 * Records that a stale indexing was aborted because of a label change.
+	 */
+	static class StaleScanInterruption extends CauseOfInterruption {
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getShortDescription() {
+			return "Aborted stale scan to restart it after a labels change";
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import com.cloudbees.jenkins.GitHubRepositoryName;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceOwner;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Polls the issue events feed of the repositories of the projects whose {@link LabeledFilterWebHookTrigger} has
+ * polling enabled, for when webhooks are not delivered.
+ * <p>
+ * Each repository costs one request per period: the feed is read from a cursor, the newest event already seen,
+ * through the GitHub client of the branch source, whose HTTP cache revalidates an unchanged feed.
+ * The first poll of a repository only sets its cursor. Label events of pull requests then go through the same
+ * pipeline as webhooks: the labels are stored and the projects are dispatched by {@link PullRequestGHEventSubscriber}.
+ * Pull requests whose stored labels already match, because the scan triggered by the webhook read them, are skipped.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public final class IssueEventsPoller extends AsyncPeriodicWork {
+	private static final Logger LOGGER = Logger.getLogger(IssueEventsPoller.class.getName());
+
+	private static final int RECURRENCE_SECONDS =
+			SystemProperties.getInteger(IssueEventsPoller.class.getName() + ".recurrenceSeconds", 60);
+
+	/**
+	 * The cursors of the polled repositories.
+	 */
+	private final Map<String, Cursor> cursors = new ConcurrentHashMap<>();
+
+	public IssueEventsPoller() {
+		super("GitHub label events poller");
+	}
+
+	@Override
+	public long getRecurrencePeriod() {
+		return TimeUnit.SECONDS.toMillis(Math.max(RECURRENCE_SECONDS, 10));
+	}
+
+	@Override
+	protected Level getNormalLoggingLevel() {
+		return Level.FINEST;
+	}
+
+	@Override
+	protected void execute(TaskListener listener) {
+		Map<String, GitHubSCMSource> sources = new LinkedHashMap<>();
+		Map<String, List<SCMSourceOwner>> owners = new LinkedHashMap<>();
+		for (WorkflowMultiBranchProject project : Jenkins.get().getAllItems(WorkflowMultiBranchProject.class)) {
+			LabeledFilterWebHookTrigger trigger = LabeledFilterWebHookTrigger.of(project);
+			if (trigger == null || !trigger.isPolling()) {
+				continue;
+			}
+			for (SCMSource source : project.getSCMSources()) {
+				if (source instanceof GitHubSCMSource && hasLabelsFilter((GitHubSCMSource) source)) {
+					String repository = LabelStoreWarmup.getRepository((GitHubSCMSource) source);
+					sources.putIfAbsent(repository, (GitHubSCMSource) source);
+					owners.computeIfAbsent(repository, k -> new ArrayList<>()).add(project);
+				}
+			}
+		}
+		cursors.keySet().retainAll(sources.keySet());
+		PullRequestGHEventSubscriber subscriber = ExtensionList.lookupSingleton(PullRequestGHEventSubscriber.class);
+		for (Map.Entry<String, GitHubSCMSource> source : sources.entrySet()) {
+			try {
+				Set<Integer> pullRequests = poll(LabelStore.get(), source.getKey(), source.getValue(),
+						GitHubLabelsClient.forSource(source.getValue()));
+				if (!pullRequests.isEmpty()) {
+					LOGGER.log(Level.FINE, "Polled label changes of pull requests {0} of {1}",
+							new Object[]{pullRequests, source.getKey()});
+					try (Tracing.Span span = Tracing.startTrace("poll")
+							.setAttribute(Tracing.REPOSITORY, source.getKey())
+							.setAttribute(Tracing.PULL_REQUESTS, pullRequests)) {
+						subscriber.process(getRepositoryName(source.getValue()), owners.get(source.getKey()), pullRequests);
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				LOGGER.log(Level.FINE, "Could not poll the issue events of " + source.getKey(), e);
+			}
+		}
+	}
+
+	/**
+	 * Reads the issue events feed of a repository from its cursor and stores the labels of the pull requests
+	 * with label events.
+	 *
+	 * @return the pull requests whose labels changed
+	 */
+	@NonNull
+	Set<Integer> poll(@NonNull LabelStore store, @NonNull String repository, @NonNull GitHubSCMSource source,
+					  @NonNull GitHubLabelsClient client) throws IOException {
+		Cursor cursor = cursors.computeIfAbsent(repository, k -> new Cursor());
+		GitHubLabelsClient.IssueEvents events = client.listIssueEvents(source.getRepoOwner(), source.getRepository(), cursor.id);
+		boolean first = cursor.id < 0;
+		cursor.id = events.getCursor();
+		Set<Integer> changed = new TreeSet<>();
+		for (GitHubLabelsClient.IssueEvent event : events.getEvents()) {
+			GitHubLabelsClient.ListedPullRequest pullRequest = event.getPullRequest();
+			PullRequestKey key = PullRequestKey.of(source, pullRequest.getNumber());
+			LabelSet previous = store.getIfPresent(key);
+			LabelSet labels = LabelSet.of(pullRequest.getLabels());
+			if (store.update(key, labels, pullRequest.getUpdatedAt()) && !first && !labels.equals(previous)) {
+				changed.add(pullRequest.getNumber());
+			}
+		}
+		return changed;
+	}
+
+	@NonNull
+	private static GitHubRepositoryName getRepositoryName(GitHubSCMSource source) {
+		return new GitHubRepositoryName(PullRequestKey.hostOf(source.getApiUri()),
+				source.getRepoOwner(), source.getRepository());
+	}
+
+	private static boolean hasLabelsFilter(GitHubSCMSource source) {
+		return source.getTraits().stream().anyMatch(trait -> trait instanceof LabelsFilter);
+	}
+
+	/**
+	 * The position of a repository in its issue events feed.
+	 */
+	private static final class Cursor {
+
+		private volatile long id = -1;
+	}
+}
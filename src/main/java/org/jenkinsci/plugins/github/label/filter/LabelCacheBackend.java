@@ -0,0 +1,39 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.IOException;
+
+/**
+ * Where the labels of pull requests read by the traits and the webhook subscriber are cached,
+ * as selected in {@link LabelCacheConfiguration}.
+ * <p>
+ * The backends are the ones of this plugin, {@link HeapLabelCacheBackend}, {@link MappedLabelCacheBackend} and
+ * {@link RedisLabelCacheBackend}. This is not an extension point: the storages use internal types, so other plugins
+ * cannot implement a backend. It is only public for data binding and Configuration as Code.
+ */
+@Restricted(NoExternalUse.class)
+public abstract class LabelCacheBackend extends AbstractDescribableImpl<LabelCacheBackend> {
+
+	LabelCacheBackend() {
+	}
+
+	/**
+	 * Creates the storage of this backend.
+	 *
+	 * @return the storage
+	 * @throws IOException if the storage could not be opened
+	 */
+	@NonNull
+	abstract LabelStorage createStorage() throws IOException;
+
+	/**
+	 * The descriptor of a {@link LabelCacheBackend}.
+	 */
+	public abstract static class LabelCacheBackendDescriptor extends Descriptor<LabelCacheBackend> {
+	}
+}
@@ -0,0 +1,100 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import jenkins.model.GlobalConfiguration;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.StaplerRequest;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Selects the {@link LabelCacheBackend} of the controller.
+ * Until one is configured, labels are cached on the heap, or in memory-mapped files with
+ * {@code -Dorg.jenkinsci.plugins.github.label.filter.LabelStore.storage=mapped}.
+ */
+@Extension
+@Symbol("githubLabelCache")
+public class LabelCacheConfiguration extends GlobalConfiguration {
+	private static final Logger LOGGER = Logger.getLogger(LabelCacheConfiguration.class.getName());
+
+	private static final String STORAGE = SystemProperties.getString(LabelStore.class.getName() + ".storage", "heap");
+
+	private LabelCacheBackend backend;
+
+	/**
+	 * The backend whose storage the {@link LabelStore} uses.
+	 */
+	private transient LabelCacheBackend applied;
+
+	public LabelCacheConfiguration() {
+		load();
+	}
+
+	/**
+	 * Gets the configuration of the controller.
+	 *
+	 * @return the configuration
+	 */
+	@NonNull
+	public static LabelCacheConfiguration get() {
+		return ExtensionList.lookupSingleton(LabelCacheConfiguration.class);
+	}
+
+	@Initializer(after = InitMilestone.PLUGINS_STARTED)
+	public static void apply() {
+		get().applyBackend();
+	}
+
+	/**
+	 * Gets the backend.
+	 *
+	 * @return the backend
+	 */
+	@NonNull
+	public LabelCacheBackend getBackend() {
+		if (backend != null) {
+			return backend;
+		}
+		return "mapped".equals(STORAGE) ? new MappedLabelCacheBackend() : new HeapLabelCacheBackend();
+	}
+
+	@DataBoundSetter
+	public void setBackend(LabelCacheBackend backend) {
+		this.backend = backend;
+	}
+
+	@Override
+	public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
+		backend = null;
+		req.bindJSON(this, json);
+		save();
+		applyBackend();
+		return true;
+	}
+
+	/**
+	 * Makes the {@link LabelStore} use the storage of the backend, keeping the current storage if it cannot be opened.
+	 */
+	synchronized void applyBackend() {
+		LabelCacheBackend selected = getBackend();
+		if (selected.equals(applied)) {
+			return;
+		}
+		try {
+			LabelStore.get().setStorage(selected.createStorage());
+			applied = selected;
+		} catch (IOException | RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Could not open the label cache " + selected.getDescriptor().getDisplayName()
+					+ ", keeping the current one", e);
+		}
+	}
+}
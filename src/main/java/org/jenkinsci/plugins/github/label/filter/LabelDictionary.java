@@ -0,0 +1,99 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A controller-wide dictionary of label names.
+ * Each distinct name is stored once and identified by a small integer id, so that the labels of a pull request
+ * can be kept as a {@link LabelSet} of ids. Ids are never reused.
+ * Lookups are lock free, only adding a new name takes a lock.
+ * <p>
+ * As names are never removed, only the configured labels and the labels read from the GitHub API are interned,
+ * so the dictionary is bounded by the labels of the monitored repositories. Labels from webhook payloads, which
+ * anyone can send, are only looked up with {@link #idOf(String)}.
+ */
+final class LabelDictionary {
+
+	private static final LabelDictionary INSTANCE = new LabelDictionary();
+
+	private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+	/**
+	 * The names by id. Replaced when it grows, and written again after each addition to publish it.
+	 */
+	private volatile String[] names = new String[64];
+
+	/**
+	 * The number of names, guarded by {@code this}.
+	 */
+	private int size;
+
+	/**
+	 * Gets the dictionary of the controller.
+	 *
+	 * @return the dictionary
+	 */
+	@NonNull
+	static LabelDictionary get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the id of a name, adding the name if needed.
+	 * Only for configured labels and labels read from the GitHub API.
+	 *
+	 * @param name the label name
+	 * @return the id
+	 */
+	int intern(@NonNull String name) {
+		Integer id = ids.get(name);
+		if (id != null) {
+			return id;
+		}
+		synchronized (this) {
+			id = ids.get(name);
+			if (id != null) {
+				return id;
+			}
+			String[] current = names;
+			if (size == current.length) {
+				current = Arrays.copyOf(current, size * 2);
+			}
+			current[size] = name;
+			names = current;
+			id = size++;
+			ids.put(name, id);
+			return id;
+		}
+	}
+
+	/**
+	 * Gets the id of a name without adding it.
+	 *
+	 * @param name the label name
+	 * @return the id or {@code -1} if the name is unknown
+	 */
+	int idOf(@NonNull String name) {
+		Integer id = ids.get(name);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Gets the name of an id.
+	 *
+	 * @param id an id returned by {@link #intern(String)}
+	 * @return the label name
+	 */
+	@NonNull
+	String name(int id) {
+		return names[id];
+	}
+
+	synchronized int size() {
+		return size;
+	}
+}
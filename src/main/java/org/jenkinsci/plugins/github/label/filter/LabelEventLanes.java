@@ -0,0 +1,242 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles label events in priority lanes by their {@link Effect} on the labels filters, so during a storm of events
+ * the ones including a pull request, which a developer waits for, reach indexing first.
+ * One thread handles the events, in arrival order within a lane.
+ * Events are classified on another thread first, so neither step runs on the thread receiving the webhook.
+ * <p>
+ * As anyone can send webhooks, at most {@value #DEFAULT_CAPACITY} events wait, unless the {@code .capacity} system
+ * property is set, and further events are dropped. An event of a pull request which already has an event waiting to
+ * be classified is dropped too: the scan the waiting event schedules reads the labels from GitHub, so it covers the
+ * later change.
+ */
+class LabelEventLanes {
+	private static final Logger LOGGER = Logger.getLogger(LabelEventLanes.class.getName());
+
+	static final int DEFAULT_CAPACITY = 1000;
+
+	private static final int CAPACITY = SystemProperties.getInteger(LabelEventLanes.class.getName() + ".capacity",
+			DEFAULT_CAPACITY);
+
+	private final Executor intake;
+
+	private final Executor executor;
+
+	private final int capacity;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final Map<Effect, AtomicInteger> pending = new EnumMap<>(Effect.class);
+
+	/**
+	 * The number of events accepted and not handled yet.
+	 */
+	private final AtomicInteger waiting = new AtomicInteger();
+
+	/**
+	 * The keys of the events accepted and not classified yet.
+	 */
+	private final Set<Object> waitingKeys = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Whether an event was dropped since the lanes were last below their capacity, so a storm is logged once.
+	 */
+	private final AtomicBoolean full = new AtomicBoolean();
+
+	LabelEventLanes() {
+		this(createIntake(CAPACITY), createExecutor(), CAPACITY);
+	}
+
+	LabelEventLanes(@NonNull Executor executor) {
+		this(executor, executor, CAPACITY);
+	}
+
+	LabelEventLanes(@NonNull Executor intake, @NonNull Executor executor, int capacity) {
+		this.intake = intake;
+		this.executor = executor;
+		this.capacity = capacity;
+		for (Effect effect : Effect.values()) {
+			pending.put(effect, new AtomicInteger());
+		}
+	}
+
+	/**
+	 * Queues the handling of an event in the lane of its effect, unless the lanes are full.
+	 *
+	 * @param effect the effect of the event
+	 * @param task   handles the event
+	 */
+	void submit(@NonNull Effect effect, @NonNull Runnable task) {
+		if (accept(null)) {
+			submit(effect, Tracing.current(), task);
+		}
+	}
+
+	/**
+	 * Classifies an event in arrival order, then queues its handling in the lane of its effect.
+	 * An event which could not be classified goes to the first lane.
+	 *
+	 * @param key        identifies the pull request of the event
+	 * @param classifier gets the effect of the event
+	 * @param task       handles the event
+	 * @return {@code false} if the event was dropped
+	 */
+	boolean submit(@NonNull Object key, @NonNull Supplier<Effect> classifier, @NonNull Runnable task) {
+		if (!accept(key)) {
+			return false;
+		}
+		Tracing.Span parent = Tracing.current();
+		try {
+			intake.execute(() -> {
+				waitingKeys.remove(key);
+				Effect effect;
+				try (Tracing.Span span = Tracing.start(parent, "classify")) {
+					effect = classifier.get();
+					span.setAttribute("lane", effect);
+				} catch (RuntimeException e) {
+					LOGGER.log(Level.WARNING, "Could not classify a label event", e);
+					effect = Effect.INCLUDED;
+				}
+				submit(effect, parent, task);
+			});
+		} catch (RejectedExecutionException e) {
+			waitingKeys.remove(key);
+			waiting.decrementAndGet();
+			LOGGER.log(Level.WARNING, "Dropping a label event of {0}, the lanes are shut down", key);
+			return false;
+		}
+		return true;
+	}
+
+	private boolean accept(@CheckForNull Object key) {
+		if (key != null && !waitingKeys.add(key)) {
+			LOGGER.log(Level.FINE, "Dropping a label event of {0}, an event of the pull request is waiting", key);
+			return false;
+		}
+		if (waiting.incrementAndGet() > capacity) {
+			waiting.decrementAndGet();
+			if (key != null) {
+				waitingKeys.remove(key);
+			}
+			if (full.compareAndSet(false, true)) {
+				LOGGER.log(Level.WARNING, "{0} label events are waiting, dropping label events until they are handled", capacity);
+			}
+			return false;
+		}
+		full.set(false);
+		return true;
+	}
+
+	private void submit(Effect effect, Tracing.Span parent, Runnable task) {
+		pending.get(effect).incrementAndGet();
+		executor.execute(new Task(effect, sequence.getAndIncrement(), parent, task));
+	}
+
+	/**
+	 * Gets the number of events waiting in a lane.
+	 *
+	 * @param effect the lane
+	 * @return the number of events
+	 */
+	int getPending(@NonNull Effect effect) {
+		return pending.get(effect).get();
+	}
+
+	private static Executor createIntake(int capacity) {
+		ThreadPoolExecutor intake = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(capacity),
+				new NamingThreadFactory(new DaemonThreadFactory(), "LabelEventLanes.intake"));
+		intake.allowCoreThreadTimeOut(true);
+		return intake;
+	}
+
+	/**
+	 * Creates the executor of the lanes, whose queue is bounded by the events {@link #accept(Object) accepted}.
+	 */
+	private static Executor createExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+				new NamingThreadFactory(new DaemonThreadFactory(), "LabelEventLanes"));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * The effect of a label event on the labels filters of the projects, in priority order.
+	 */
+	enum Effect {
+		/**
+		 * A project now includes a pull request it excluded, or its previous labels are unknown.
+		 */
+		INCLUDED,
+		/**
+		 * A project now excludes a pull request it included.
+		 */
+		EXCLUDED,
+		/**
+		 * No project changed its decision.
+		 */
+		UNCHANGED
+	}
+
+	private final class Task implements Runnable, Comparable<Task> {
+
+		private final Effect effect;
+
+		private final long sequence;
+
+		private final Tracing.Span parent;
+
+		private final Runnable task;
+
+		private final long submitted = System.nanoTime();
+
+		private Task(Effect effect, long sequence, Tracing.Span parent, Runnable task) {
+			this.effect = effect;
+			this.sequence = sequence;
+			this.parent = parent;
+			this.task = task;
+		}
+
+		@Override
+		public int compareTo(Task other) {
+			int compared = effect.compareTo(other.effect);
+			return compared != 0 ? compared : Long.compare(sequence, other.sequence);
+		}
+
+		@Override
+		public void run() {
+			pending.get(effect).decrementAndGet();
+			waiting.decrementAndGet();
+			try (Tracing.Span span = Tracing.start(parent, "lane")
+					.setAttribute("lane", effect)
+					.setAttribute("waitMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submitted))) {
+				task.run();
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Could not handle a label event", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Normalizes label names for matching.
+ * Whitespace is trimmed and collapsed, and optionally the case is folded, emojis and {@code :shortcodes:} are
+ * removed and a prefix such as {@code "type: "} is stripped.
+ * <p>
+ * Configured labels are normalized once with {@link #normalize(String)}. Pull request labels are compared with
+ * {@link #hash(String)} and {@link #matches(String, String)}, which walk the label in place without allocating
+ * normalized copies.
+ */
+final class LabelNormalizer {
+
+	private static final long END = -1L;
+
+	private final boolean ignoreCase;
+
+	private final boolean stripEmoji;
+
+	/**
+	 * The normalized prefix to strip, empty if none.
+	 */
+	private final String prefix;
+
+	LabelNormalizer(boolean ignoreCase, boolean stripEmoji, @CheckForNull String stripPrefix) {
+		this.ignoreCase = ignoreCase;
+		this.stripEmoji = stripEmoji;
+		this.prefix = stripPrefix == null ? "" : new LabelNormalizer(ignoreCase, stripEmoji, null).normalize(stripPrefix);
+	}
+
+	/**
+	 * Normalizes a label, allocating a new string.
+	 *
+	 * @param label the label name
+	 * @return the normalized label name
+	 */
+	@NonNull
+	String normalize(@NonNull String label) {
+		StringBuilder normalized = new StringBuilder(label.length());
+		for (long next = first(label); next != END; next = next(label, index(next))) {
+			normalized.appendCodePoint(codePoint(next));
+		}
+		return normalized.toString();
+	}
+
+	/**
+	 * Computes the hash of the normalized form of a label without allocating it.
+	 * Equal to {@code normalize(label).hashCode()}.
+	 *
+	 * @param label the label name
+	 * @return the hash of the normalized label
+	 */
+	int hash(@NonNull String label) {
+		int hash = 0;
+		for (long next = first(label); next != END; next = next(label, index(next))) {
+			int codePoint = codePoint(next);
+			if (Character.isSupplementaryCodePoint(codePoint)) {
+				hash = 31 * (31 * hash + Character.highSurrogate(codePoint)) + Character.lowSurrogate(codePoint);
+			} else {
+				hash = 31 * hash + codePoint;
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Checks whether a label normalizes to an already normalized label without allocating.
+	 *
+	 * @param label      the label name
+	 * @param normalized a label returned by {@link #normalize(String)}
+	 * @return {@code true} if the label matches
+	 */
+	boolean matches(@NonNull String label, @NonNull String normalized) {
+		int i = 0;
+		long next = first(label);
+		while (next != END) {
+			if (i >= normalized.length()) {
+				return false;
+			}
+			int expected = normalized.codePointAt(i);
+			if (codePoint(next) != expected) {
+				return false;
+			}
+			i += Character.charCount(expected);
+			next = next(label, index(next));
+		}
+		return i == normalized.length();
+	}
+
+	/**
+	 * Gets the first normalized code point of a label, after leading whitespace and the stripped prefix.
+	 */
+	private long first(String label) {
+		int start = skipWhitespace(label, 0);
+		if (prefix.isEmpty()) {
+			return next(label, start);
+		}
+		int i = 0;
+		int position = start;
+		long next = next(label, start);
+		while (i < prefix.length()) {
+			int expected = prefix.codePointAt(i);
+			if (next == END || codePoint(next) != expected) {
+				return next(label, start);
+			}
+			i += Character.charCount(expected);
+			position = index(next);
+			next = next(label, position);
+		}
+		int rest = skipWhitespace(label, position);
+		if (rest >= label.length()) {
+			// the label is only the prefix, keep it as is
+			return next(label, start);
+		}
+		return next(label, rest);
+	}
+
+	/**
+	 * Gets the normalized code point at or after an index, packed with the index following it.
+	 * Whitespace runs are collapsed to a single space and trailing whitespace is dropped.
+	 */
+	private long next(String label, int index) {
+		int i = skipIgnorable(label, index);
+		if (i >= label.length()) {
+			return END;
+		}
+		int codePoint = label.codePointAt(i);
+		if (Character.isWhitespace(codePoint) || Character.isSpaceChar(codePoint)) {
+			int j = skipWhitespace(label, i);
+			return j >= label.length() ? END : pack(' ', j);
+		}
+		return pack(fold(codePoint), i + Character.charCount(codePoint));
+	}
+
+	private int skipWhitespace(String label, int index) {
+		int i = skipIgnorable(label, index);
+		while (i < label.length()) {
+			int codePoint = label.codePointAt(i);
+			if (!Character.isWhitespace(codePoint) && !Character.isSpaceChar(codePoint)) {
+				break;
+			}
+			i = skipIgnorable(label, i + Character.charCount(codePoint));
+		}
+		return i;
+	}
+
+	private int skipIgnorable(String label, int index) {
+		int i = index;
+		if (!stripEmoji) {
+			return i;
+		}
+		while (i < label.length()) {
+			int codePoint = label.codePointAt(i);
+			if (isEmoji(codePoint)) {
+				i += Character.charCount(codePoint);
+			} else if (codePoint == ':') {
+				int end = shortcodeEnd(label, i);
+				if (end == i) {
+					break;
+				}
+				i = end;
+			} else {
+				break;
+			}
+		}
+		return i;
+	}
+
+	/**
+	 * Gets the index after a {@code :shortcode:} starting at an index, or the index itself if there is none.
+	 */
+	private static int shortcodeEnd(String label, int index) {
+		int i = index + 1;
+		while (i < label.length()) {
+			char c = label.charAt(i);
+			if (c == ':') {
+				return i > index + 1 ? i + 1 : index;
+			}
+			if (!(c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '_' || c == '+' || c == '-')) {
+				return index;
+			}
+			i++;
+		}
+		return index;
+	}
+
+	private static boolean isEmoji(int codePoint) {
+		return Character.getType(codePoint) == Character.OTHER_SYMBOL
+				|| codePoint >= 0x1F3FB && codePoint <= 0x1F3FF // skin tone modifiers
+				|| codePoint == 0x200D // zero width joiner
+				|| codePoint == 0x20E3 // combining enclosing keycap
+				|| codePoint >= 0xFE00 && codePoint <= 0xFE0F // variation selectors
+				|| codePoint >= 0xE0020 && codePoint <= 0xE007F; // tags
+	}
+
+	private int fold(int codePoint) {
+		return ignoreCase ? Character.toLowerCase(Character.toUpperCase(codePoint)) : codePoint;
+	}
+
+	private static long pack(int codePoint, int nextIndex) {
+		return ((long) codePoint << 32) | (nextIndex & 0xFFFFFFFFL);
+	}
+
+	private static int codePoint(long next) {
+		return (int) (next >>> 32);
+	}
+
+	private static int index(long next) {
+		return (int) next;
+	}
+}
@@ -0,0 +1,117 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * The labels of a pull request as a sorted array of {@link LabelDictionary} ids.
+ * It is immutable and reads as a list of label names ordered by id, without keeping the names.
+ */
+final class LabelSet extends AbstractList<String> implements RandomAccess {
+
+	static final LabelSet EMPTY = new LabelSet(new int[0]);
+
+	private final int[] ids;
+
+	private LabelSet(int[] ids) {
+		this.ids = ids;
+	}
+
+	/**
+	 * Interns label names into a label set.
+	 * Only for labels read from the GitHub API, see {@link LabelDictionary}.
+	 *
+	 * @param names the label names
+	 * @return the label set
+	 */
+	@NonNull
+	static LabelSet of(@NonNull Collection<String> names) {
+		if (names instanceof LabelSet) {
+			return (LabelSet) names;
+		}
+		if (names.isEmpty()) {
+			return EMPTY;
+		}
+		LabelDictionary dictionary = LabelDictionary.get();
+		int[] ids = new int[names.size()];
+		int i = 0;
+		for (String name : names) {
+			ids[i++] = dictionary.intern(name);
+		}
+		return ofIds(ids);
+	}
+
+	/**
+	 * Creates a label set from dictionary ids.
+	 *
+	 * @param ids the ids, which are sorted in place
+	 * @return the label set
+	 */
+	@NonNull
+	static LabelSet ofIds(@NonNull int[] ids) {
+		Arrays.sort(ids);
+		int size = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (i == 0 || ids[i] != ids[i - 1]) {
+				ids[size++] = ids[i];
+			}
+		}
+		return size == 0 ? EMPTY : new LabelSet(size == ids.length ? ids : Arrays.copyOf(ids, size));
+	}
+
+	/**
+	 * Checks whether the set contains a label id.
+	 *
+	 * @param id the id
+	 * @return {@code true} if the label is in the set
+	 */
+	boolean containsId(int id) {
+		return Arrays.binarySearch(ids, id) >= 0;
+	}
+
+	/**
+	 * Gets the id at an index.
+	 *
+	 * @param index the index
+	 * @return the id
+	 */
+	int idAt(int index) {
+		return ids[index];
+	}
+
+	@Override
+	public String get(int index) {
+		return LabelDictionary.get().name(ids[index]);
+	}
+
+	@Override
+	public int size() {
+		return ids.length;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof String)) {
+			return false;
+		}
+		int id = LabelDictionary.get().idOf((String) o);
+		return id >= 0 && containsId(id);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof LabelSet) {
+			return Arrays.equals(ids, ((LabelSet) o).ids);
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+}
@@ -0,0 +1,103 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.io.IOException;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Where a {@link LabelStore} keeps its entries.
+ * Implementations are thread safe, and {@link #compute} is atomic for a pull request.
+ */
+interface LabelStorage {
+
+	/**
+	 * Gets the entry of a pull request.
+	 *
+	 * @param key the pull request
+	 * @return the entry or {@code null} if none is stored
+	 */
+	@CheckForNull
+	LabelStore.Entry get(@NonNull PullRequestKey key);
+
+	/**
+	 * Stores the entry of a pull request.
+	 *
+	 * @param key   the pull request
+	 * @param entry the entry
+	 */
+	void put(@NonNull PullRequestKey key, @NonNull LabelStore.Entry entry);
+
+	/**
+	 * Atomically replaces the entry of a pull request.
+	 *
+	 * @param key      the pull request
+	 * @param function computes the new entry from the stored one, both {@code null} when absent
+	 * @return the new entry
+	 */
+	@CheckForNull
+	LabelStore.Entry compute(@NonNull PullRequestKey key, @NonNull UnaryOperator<LabelStore.Entry> function);
+
+	/**
+	 * Removes the entry of a pull request.
+	 *
+	 * @param key the pull request
+	 */
+	void invalidate(@NonNull PullRequestKey key);
+
+	/**
+	 * Visits the stored entries.
+	 *
+	 * @param action the visitor
+	 */
+	void forEach(@NonNull BiConsumer<PullRequestKey, LabelStore.Entry> action);
+
+	/**
+	 * Visits the stored entries of the pull requests of a repository.
+	 *
+	 * @param host       the host
+	 * @param owner      the repository owner
+	 * @param repository the repository name
+	 * @param action     the visitor
+	 */
+	default void forEachIn(@NonNull String host, @NonNull String owner, @NonNull String repository,
+						   @NonNull BiConsumer<PullRequestKey, LabelStore.Entry> action) {
+		forEach((key, entry) -> {
+			if (key.isIn(host, owner, repository)) {
+				action.accept(key, entry);
+			}
+		});
+	}
+
+	/**
+	 * Gets the number of stored entries.
+	 *
+	 * @return the number of entries
+	 */
+	long size();
+
+	/**
+	 * Tells whether the entries survive a restart of the controller by themselves.
+	 *
+	 * @return {@code true} if the storage is persistent
+	 */
+	default boolean isPersistent() {
+		return false;
+	}
+
+	/**
+	 * Writes pending changes to durable storage.
+	 *
+	 * @throws IOException if the changes could not be written
+	 */
+	default void flush() throws IOException {
+	}
+
+	/**
+	 * Releases the resources of the storage once it is no longer used.
+	 */
+	default void close() {
+	}
+}
@@ -0,0 +1,298 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A controller-wide store of pull request labels shared by all the traits of all the projects.
+ * Labels are kept as compact {@link LabelSet}s of interned ids.
+ * Only labels read from the GitHub API are stored, never labels of webhook payloads, as the build strategy and the
+ * pipeline step rely on them.
+ * <p>
+ * Entries remember the update time of the pull request their labels were read at, so labels read out of order do
+ * not replace newer ones. Entries are kept by a {@link LabelStorage}, by default a bounded {@link HeapLabelStorage}.
+ */
+final class LabelStore {
+
+	private static final LabelStore INSTANCE = new LabelStore(new HeapLabelStorage());
+
+	private volatile LabelStorage storage;
+
+	LabelStore(long maxEntries, long expireAfterWriteMinutes) {
+		this(new HeapLabelStorage(maxEntries, expireAfterWriteMinutes));
+	}
+
+	LabelStore(@NonNull LabelStorage storage) {
+		this.storage = storage;
+	}
+
+	/**
+	 * Gets the store of the controller.
+	 *
+	 * @return the store
+	 */
+	@NonNull
+	static LabelStore get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets where the entries are kept.
+	 *
+	 * @return the storage
+	 */
+	@NonNull
+	LabelStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * Changes where the entries are kept, copying the entries of the previous storage
+	 * unless the new storage already has entries for the same pull requests, then closes the previous storage.
+	 *
+	 * @param storage the storage
+	 */
+	synchronized void setStorage(@NonNull LabelStorage storage) {
+		LabelStorage previous = this.storage;
+		if (previous == storage) {
+			return;
+		}
+		previous.forEach((key, entry) -> storage.compute(key, cached -> cached == null ? entry : cached));
+		this.storage = storage;
+		previous.close();
+	}
+
+	/**
+	 * Tells whether the entries survive a restart of the controller by themselves.
+	 *
+	 * @return {@code true} if the storage is persistent
+	 */
+	boolean isPersistent() {
+		return storage.isPersistent();
+	}
+
+	/**
+	 * Stores the labels of a pull request read from the GitHub API elsewhere, e.g. listed with it.
+	 *
+	 * @param key       the pull request
+	 * @param labels    the label names
+	 * @param updatedAt the last update of the pull request the labels were read at
+	 */
+	void put(@NonNull PullRequestKey key, @NonNull Collection<String> labels, @CheckForNull Date updatedAt) {
+		storage.put(key, new Entry(labels, updatedAt));
+	}
+
+	/**
+	 * Stores the labels of a pull request unless newer labels are already stored,
+	 * as listings and polled events may be read out of order.
+	 *
+	 * @param key       the pull request
+	 * @param labels    the label names
+	 * @param updatedAt the last update of the pull request the labels were read at
+	 * @return {@code true} if the labels were stored
+	 */
+	boolean update(@NonNull PullRequestKey key, @NonNull Collection<String> labels, @NonNull Date updatedAt) {
+		boolean[] updated = new boolean[1];
+		storage.compute(key, cached -> {
+			updated[0] = cached == null || cached.updatedAt <= updatedAt.getTime();
+			return updated[0] ? new Entry(labels, updatedAt) : cached;
+		});
+		return updated[0];
+	}
+
+	/**
+	 * Gets the stored labels of a pull request, even if the pull request was updated since,
+	 * as long as they were stored recently enough.
+	 *
+	 * @param key                the pull request
+	 * @param maxStalenessMillis how long ago the labels may have been stored
+	 * @return the labels or {@code null} if no recent enough labels are stored
+	 */
+	@CheckForNull
+	LabelSet getLastKnown(@NonNull PullRequestKey key, long maxStalenessMillis) {
+		Entry cached = storage.get(key);
+		if (cached == null || System.currentTimeMillis() - cached.storedAt > maxStalenessMillis) {
+			return null;
+		}
+		return cached.labels;
+	}
+
+	/**
+	 * Gets the stored labels of a pull request without loading them.
+	 *
+	 * @param key the pull request
+	 * @return the labels or {@code null} if they are not stored
+	 */
+	@CheckForNull
+	LabelSet getIfPresent(@NonNull PullRequestKey key) {
+		Entry cached = storage.get(key);
+		return cached == null ? null : cached.labels;
+	}
+
+	/**
+	 * Forgets the labels of a pull request.
+	 *
+	 * @param key the pull request
+	 */
+	void invalidate(@NonNull PullRequestKey key) {
+		storage.invalidate(key);
+	}
+
+	/**
+	 * Forgets the labels of every pull request, for instance between tests sharing the store of the controller.
+	 */
+	void clear() {
+		List<PullRequestKey> keys = new ArrayList<>();
+		storage.forEach((key, cached) -> keys.add(key));
+		keys.forEach(storage::invalidate);
+	}
+
+	/**
+	 * Gets the stored labels of the pull requests of a repository.
+	 *
+	 * @param host       the host
+	 * @param owner      the repository owner
+	 * @param repository the repository name
+	 * @return the labels by pull request number
+	 */
+	@NonNull
+	SortedMap<Integer, LabelSet> snapshot(@NonNull String host, @NonNull String owner, @NonNull String repository) {
+		SortedMap<Integer, LabelSet> snapshot = new TreeMap<>();
+		storage.forEachIn(host, owner, repository, (key, entry) -> snapshot.put(key.getNumber(), entry.labels));
+		return snapshot;
+	}
+
+	/**
+	 * Forgets the stored labels of the pull requests of a repository with a label, after the label was renamed or
+	 * deleted in the repository. They are not rewritten from the webhook announcing the change, which is not
+	 * trusted, but read again from GitHub by the next lookup.
+	 *
+	 * @param host       the host
+	 * @param owner      the repository owner
+	 * @param repository the repository name
+	 * @param name       the label name
+	 * @return the numbers of the pull requests whose labels were forgotten
+	 */
+	@NonNull
+	SortedSet<Integer> invalidateLabel(@NonNull String host, @NonNull String owner, @NonNull String repository,
+									   @NonNull String name) {
+		SortedSet<Integer> invalidated = new TreeSet<>();
+		int id = LabelDictionary.get().idOf(name);
+		if (id < 0) {
+			return invalidated;
+		}
+		List<PullRequestKey> keys = new ArrayList<>();
+		storage.forEachIn(host, owner, repository, (key, entry) -> {
+			if (entry.labels.containsId(id)) {
+				keys.add(key);
+			}
+		});
+		for (PullRequestKey key : keys) {
+			storage.invalidate(key);
+			invalidated.add(key.getNumber());
+		}
+		return invalidated;
+	}
+
+	long size() {
+		return storage.size();
+	}
+
+	/**
+	 * Visits the stored entries, for instance to persist them.
+	 *
+	 * @param visitor the visitor
+	 * @throws IOException if the visitor failed
+	 */
+	void forEach(@NonNull Visitor visitor) throws IOException {
+		try {
+			storage.forEach((key, cached) -> {
+				try {
+					visitor.visit(key, cached.labels, cached.updatedAt, cached.storedAt);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Stores labels which were persisted, unless labels are already stored for the pull request.
+	 *
+	 * @param key          the pull request
+	 * @param labels       the label names
+	 * @param updatedAt the last update of the pull request in milliseconds, or {@code -1} if unknown
+	 * @param storedAt  when the labels were stored in milliseconds
+	 */
+	void restore(@NonNull PullRequestKey key, @NonNull Collection<String> labels, long updatedAt, long storedAt) {
+		Entry restored = new Entry(labels, updatedAt, storedAt);
+		storage.compute(key, cached -> cached == null ? restored : cached);
+	}
+
+	/**
+	 * Visits stored entries.
+	 */
+	@FunctionalInterface
+	interface Visitor {
+		void visit(PullRequestKey key, LabelSet labels, long updatedAt, long storedAt) throws IOException;
+	}
+
+	/**
+	 * The labels of a pull request, with the update time they were read at.
+	 */
+	static final class Entry {
+
+		private final LabelSet labels;
+
+		/**
+		 * The last update of the pull request in milliseconds, or {@code -1} if unknown.
+		 */
+		private final long updatedAt;
+
+		/**
+		 * When the labels were stored in milliseconds.
+		 */
+		private final long storedAt;
+
+		Entry(Collection<String> labels, @CheckForNull Date updatedAt) {
+			this(labels, updatedAt == null ? -1 : updatedAt.getTime(), System.currentTimeMillis());
+		}
+
+		Entry(Collection<String> labels, long updatedAt, long storedAt) {
+			this.labels = LabelSet.of(labels);
+			this.updatedAt = updatedAt;
+			this.storedAt = storedAt;
+		}
+
+		@NonNull
+		LabelSet getLabels() {
+			return labels;
+		}
+
+		long getUpdatedAtMillis() {
+			return updatedAt;
+		}
+
+		long getStoredAt() {
+			return storedAt;
+		}
+
+		@CheckForNull
+		Date getUpdatedAt() {
+			return updatedAt < 0 ? null : new Date(updatedAt);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists the {@link LabelStore} in a compact binary file, so labels survive a restart of the controller.
+ */
+final class LabelStoreSnapshot {
+
+	private static final int MAGIC = 0x4C424C53;
+
+	private static final int VERSION = 3;
+
+	private LabelStoreSnapshot() {
+	}
+
+	/**
+	 * Writes a store to a file, replacing it atomically.
+	 *
+	 * @param store the store
+	 * @param file  the file
+	 * @return the number of pull requests written
+	 * @throws IOException if the file could not be written
+	 */
+	static int save(@NonNull LabelStore store, @NonNull File file) throws IOException {
+		File directory = file.getParentFile();
+		if (directory != null) {
+			Files.createDirectories(directory.toPath());
+		}
+		File temporary = new File(file.getPath() + ".tmp");
+		int written;
+		try (OutputStream out = Files.newOutputStream(temporary.toPath())) {
+			written = write(store, out);
+		}
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return written;
+	}
+
+	/**
+	 * Reads a file into a store, keeping the labels the store already has.
+	 *
+	 * @param store the store
+	 * @param file  the file
+	 * @return the number of pull requests read, {@code 0} if the file does not exist
+	 * @throws IOException if the file could not be read
+	 */
+	static int load(@NonNull LabelStore store, @NonNull File file) throws IOException {
+		if (!file.isFile()) {
+			return 0;
+		}
+		try (InputStream in = Files.newInputStream(file.toPath())) {
+			return read(store, in);
+		}
+	}
+
+	static int write(@NonNull LabelStore store, @NonNull OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		int[] written = new int[1];
+		// a persistent storage keeps the entries by itself
+		if (!store.isPersistent()) {
+			store.forEach((key, labels, updatedAt, storedAt) -> {
+				data.writeBoolean(true);
+				data.writeUTF(key.getHost());
+				data.writeUTF(key.getOwner());
+				data.writeUTF(key.getRepository());
+				data.writeInt(key.getNumber());
+				data.writeLong(updatedAt);
+				data.writeLong(storedAt);
+				data.writeInt(labels.size());
+				for (String label : labels) {
+					data.writeUTF(label);
+				}
+				written[0]++;
+			});
+		}
+		data.writeBoolean(false);
+		data.flush();
+		return written[0];
+	}
+
+	static int read(@NonNull LabelStore store, @NonNull InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not a label store snapshot");
+		}
+		int version = data.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported label store snapshot version " + version);
+		}
+		int read = 0;
+		while (data.readBoolean()) {
+			PullRequestKey key = new PullRequestKey(data.readUTF(), data.readUTF(), data.readUTF(), data.readInt());
+			long updatedAt = data.readLong();
+			long storedAt = data.readLong();
+			int size = data.readInt();
+			List<String> labels = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				labels.add(data.readUTF());
+			}
+			store.restore(key, labels, updatedAt, storedAt);
+			read++;
+		}
+		return read;
+	}
+}
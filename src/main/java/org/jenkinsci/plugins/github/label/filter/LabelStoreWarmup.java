@@ -0,0 +1,186 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import com.cloudbees.hudson.plugins.folder.computed.FolderComputation;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMSource;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Warms the {@link LabelStore} up after a restart, so the first scans do not fetch the labels of every pull request
+ * at once.
+ * <p>
+ * On its own threads, without blocking the startup nor the shared timer, the snapshot persisted at the last
+ * shutdown is loaded, then the open pull requests of the repositories with labels filters are listed with their
+ * labels, a page of 100 per request.
+ * Listings go through the GitHub client of the branch source, whose HTTP cache revalidates unchanged pages.
+ * Projects with the {@link LabeledFilterWebHookTrigger} go first, then the most recently indexed ones,
+ * and at most {@code threads} repositories are listed concurrently.
+ */
+@Restricted(NoExternalUse.class)
+public final class LabelStoreWarmup {
+	private static final Logger LOGGER = Logger.getLogger(LabelStoreWarmup.class.getName());
+
+	private static final boolean DISABLED = SystemProperties.getBoolean(LabelStoreWarmup.class.getName() + ".disabled");
+
+	private static final int THREADS = SystemProperties.getInteger(LabelStoreWarmup.class.getName() + ".threads", 2);
+
+	private LabelStoreWarmup() {
+	}
+
+	@Initializer(after = InitMilestone.JOB_LOADED)
+	public static void warmUp() {
+		if (DISABLED) {
+			return;
+		}
+		ExecutorService executor = new ThreadPoolExecutor(THREADS, THREADS, 1, TimeUnit.MINUTES,
+				new LinkedBlockingQueue<>(), new NamingThreadFactory(new DaemonThreadFactory(), "LabelStoreWarmup"));
+		executor.execute(() -> ACL.impersonate(ACL.SYSTEM, () -> run(executor)));
+	}
+
+	@Terminator
+	public static void persist() {
+		try {
+			LabelStore.get().getStorage().flush();
+			int written = LabelStoreSnapshot.save(LabelStore.get(), getSnapshotFile());
+			LOGGER.log(Level.FINE, "Persisted the labels of {0} pull requests", written);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Could not persist the labels of pull requests", e);
+		}
+	}
+
+	/**
+	 * Restores the snapshot, then lists the repositories on the threads of the executor without waiting for them.
+	 */
+	private static void run(ExecutorService executor) {
+		LabelStore store = LabelStore.get();
+		try {
+			int read = LabelStoreSnapshot.load(store, getSnapshotFile());
+			LOGGER.log(Level.FINE, "Restored the labels of {0} pull requests", read);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Could not restore the labels of pull requests", e);
+		}
+		Map<String, GitHubSCMSource> sources = getSources(Jenkins.get().getAllItems(WorkflowMultiBranchProject.class));
+		AtomicInteger warmed = new AtomicInteger();
+		List<CompletableFuture<Void>> listings = new ArrayList<>();
+		for (Map.Entry<String, GitHubSCMSource> source : sources.entrySet()) {
+			listings.add(CompletableFuture.runAsync(() -> {
+				try {
+					warmed.addAndGet(warmUp(store, source.getKey(), source.getValue()));
+				} catch (IOException | RuntimeException e) {
+					LOGGER.log(Level.FINE, "Could not warm up the labels of " + source.getKey(), e);
+				}
+			}, executor));
+		}
+		executor.shutdown();
+		CompletableFuture.allOf(listings.toArray(new CompletableFuture[0])).thenRun(() ->
+				LOGGER.log(Level.INFO, "Warmed up the labels of {0} pull requests of {1} repositories",
+						new Object[]{warmed.get(), sources.size()}));
+	}
+
+	/**
+	 * Gets the sources with labels filters in warm up order, one per repository.
+	 */
+	static Map<String, GitHubSCMSource> getSources(@NonNull List<WorkflowMultiBranchProject> projects) {
+		List<WorkflowMultiBranchProject> ordered = new ArrayList<>(projects);
+		ordered.sort(Comparator.comparing((WorkflowMultiBranchProject project) -> LabeledFilterWebHookTrigger.of(project) == null)
+				.thenComparing(LabelStoreWarmup::getLastIndexing, Comparator.reverseOrder()));
+		Map<String, GitHubSCMSource> sources = new LinkedHashMap<>();
+		for (WorkflowMultiBranchProject project : ordered) {
+			for (SCMSource source : project.getSCMSources()) {
+				if (source instanceof GitHubSCMSource && hasLabelsFilter((GitHubSCMSource) source)) {
+					GitHubSCMSource gitHubSCMSource = (GitHubSCMSource) source;
+					sources.putIfAbsent(getRepository(gitHubSCMSource), gitHubSCMSource);
+				}
+			}
+		}
+		return sources;
+	}
+
+	/**
+	 * Lists the open pull requests of a repository and stores their labels.
+	 *
+	 * @return the number of pull requests whose labels were stored
+	 */
+	static int warmUp(@NonNull LabelStore store, @NonNull String repository, @NonNull GitHubSCMSource source) throws IOException {
+		return warmUp(store, source, GitHubLabelsClient.forSource(source));
+	}
+
+	static int warmUp(@NonNull LabelStore store, @NonNull GitHubSCMSource source, @NonNull GitHubLabelsClient client)
+			throws IOException {
+		int stored = 0;
+		for (GitHubLabelsClient.ListedPullRequest pullRequest : client.listOpenPullRequests(source.getRepoOwner(), source.getRepository())) {
+			if (store.update(PullRequestKey.of(source, pullRequest.getNumber()), pullRequest.getLabels(), pullRequest.getUpdatedAt())) {
+				stored++;
+			}
+		}
+		return stored;
+	}
+
+	/**
+	 * Reads the labels of an open pull request of the repository of a source into a store.
+	 *
+	 * @return the labels or {@code null} if the pull request is not open
+	 */
+	@CheckForNull
+	static LabelSet refresh(@NonNull LabelStore store, @NonNull GitHubSCMSource source, @NonNull PullRequestKey key,
+							@NonNull GitHubLabelsClient client) throws IOException {
+		GitHubLabelsClient.ListedPullRequest pullRequest = client.getOpenPullRequest(source.getRepoOwner(),
+				source.getRepository(), key.getNumber());
+		if (pullRequest == null) {
+			return null;
+		}
+		LabelSet labels = LabelSet.of(pullRequest.getLabels());
+		store.update(key, labels, pullRequest.getUpdatedAt());
+		return labels;
+	}
+
+	@NonNull
+	static String getRepository(@NonNull GitHubSCMSource source) {
+		return PullRequestKey.hostOf(source.getApiUri()) + "/" + source.getRepoOwner() + "/" + source.getRepository();
+	}
+
+	private static boolean hasLabelsFilter(GitHubSCMSource source) {
+		return source.getTraits().stream().anyMatch(trait -> trait instanceof LabelsFilter);
+	}
+
+	private static long getLastIndexing(WorkflowMultiBranchProject project) {
+		FolderComputation<?> computation = project.getComputation();
+		return computation == null ? 0 : computation.getTimestamp().getTimeInMillis();
+	}
+
+	static File getDirectory() {
+		return new File(Jenkins.get().getRootDir(), "github-label-filter");
+	}
+
+	private static File getSnapshotFile() {
+		return new File(getDirectory(), "label-store.bin");
+	}
+}
@@ -1,19 +1,170 @@
 package org.jenkinsci.plugins.github.label.filter;
 
+import com.cloudbees.hudson.plugins.folder.computed.ComputedFolder;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.model.Item;
 import hudson.triggers.Trigger;
 import hudson.triggers.TriggerDescriptor;
 import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 public class LabeledFilterWebHookTrigger extends Trigger {
 
+	/**
+	 * The default number of seconds after which a running scan is considered stale.
+	 */
+	static final int DEFAULT_STALE_SCAN_SECONDS = 300;
+
+	/**
+	 * What to do when a label event arrives while a scan is running.
+	 */
+	private RunningScanPolicy runningScanPolicy;
+
+	/**
+	 * The number of seconds after which a running scan is stale for {@link RunningScanPolicy#CANCEL_STALE}.
+	 */
+	private int staleScanSeconds = DEFAULT_STALE_SCAN_SECONDS;
+
+	/**
+	 * Whether to also poll the issue events feed of the repositories, see {@link IssueEventsPoller}.
+	 */
+	private boolean polling;
+
+	/**
+	 * Whether to abort the builds of a pull request as soon as a label event excludes it, see {@link ExcludedBuildsAborter}.
+	 */
+	private boolean abortExcludedBuilds;
 
 	@DataBoundConstructor
 	public LabeledFilterWebHookTrigger() {
 	}
 
+	/**
+	 * Gets what to do when a label event arrives while a scan is running.
+	 *
+	 * @return the policy
+	 */
+	@NonNull
+	public RunningScanPolicy getRunningScanPolicy() {
+		return runningScanPolicy == null ? RunningScanPolicy.FOLLOW_UP : runningScanPolicy;
+	}
+
+	/**
+	 * Sets what to do when a label event arrives while a scan is running.
+	 *
+	 * @param runningScanPolicy the policy
+	 */
+	@DataBoundSetter
+	public void setRunningScanPolicy(RunningScanPolicy runningScanPolicy) {
+		this.runningScanPolicy = runningScanPolicy;
+	}
+
+	/**
+	 * Gets the number of seconds after which a running scan is stale.
+	 *
+	 * @return the number of seconds
+	 */
+	public int getStaleScanSeconds() {
+		return staleScanSeconds > 0 ? staleScanSeconds : DEFAULT_STALE_SCAN_SECONDS;
+	}
+
+	/**
+	 * Sets the number of seconds after which a running scan is stale.
+	 *
+	 * @param staleScanSeconds the number of seconds
+	 */
+	@DataBoundSetter
+	public void setStaleScanSeconds(int staleScanSeconds) {
+		this.staleScanSeconds = staleScanSeconds;
+	}
+
+	/**
+	 * Gets whether to also poll the issue events feed of the repositories.
+	 *
+	 * @return {@code true} to poll
+	 */
+	public boolean isPolling() {
+		return polling;
+	}
+
+	/**
+	 * Sets whether to also poll the issue events feed of the repositories.
+	 *
+	 * @param polling {@code true} to poll
+	 */
+	@DataBoundSetter
+	public void setPolling(boolean polling) {
+		this.polling = polling;
+	}
+
+	/**
+	 * Gets whether to abort the builds of a pull request as soon as a label event excludes it.
+	 *
+	 * @return {@code true} to abort
+	 */
+	public boolean isAbortExcludedBuilds() {
+		return abortExcludedBuilds;
+	}
+
+	/**
+	 * Sets whether to abort the builds of a pull request as soon as a label event excludes it.
+	 *
+	 * @param abortExcludedBuilds {@code true} to abort
+	 */
+	@DataBoundSetter
+	public void setAbortExcludedBuilds(boolean abortExcludedBuilds) {
+		this.abortExcludedBuilds = abortExcludedBuilds;
+	}
+
+	/**
+	 * Gets the trigger of a project.
+	 *
+	 * @param project the project
+	 * @return the trigger or {@code null} if the project has none
+	 */
+	@CheckForNull
+	static LabeledFilterWebHookTrigger of(@NonNull ComputedFolder<?> project) {
+		for (Trigger<?> trigger : project.getTriggers().values()) {
+			if (trigger instanceof LabeledFilterWebHookTrigger) {
+				return (LabeledFilterWebHookTrigger) trigger;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * What to do when a label event arrives while a scan of the project is running.
+	 */
+	public enum RunningScanPolicy {
+		/**
+		 * Queue exactly one follow-up scan.
+		 */
+		FOLLOW_UP("Queue one follow-up scan"),
+		/**
+		 * Drop the label event, so no scan is queued. The running scan filters on the labels listed when it started,
+		 * so the change is only picked up by the next scan, triggered by a later event or by the periodic scan.
+		 */
+		MERGE("Drop label events while a scan runs"),
+		/**
+		 * Abort the running scan and queue a new one when it has been running for too long,
+		 * otherwise queue one follow-up scan.
+		 */
+		CANCEL_STALE("Cancel and restart a stale scan");
+
+		private final String displayName;
+
+		RunningScanPolicy(String displayName) {
+			this.displayName = displayName;
+		}
+
+		public String getDisplayName() {
+			return displayName;
+		}
+	}
+
 	/**
 	 * Our {@link hudson.model.Descriptor}
 	 */
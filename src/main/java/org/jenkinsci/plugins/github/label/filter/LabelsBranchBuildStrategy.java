@@ -0,0 +1,167 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.util.FormValidation;
+import jenkins.branch.BranchBuildStrategy;
+import jenkins.branch.BranchBuildStrategyDescriptor;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builds discovered pull requests only when their labels match, without hiding the other pull requests,
+ * so toggling a label does not delete and recreate their jobs.
+ * <p>
+ * The decision reads the labels the traits stored in the {@link LabelStore} during indexing,
+ * so it usually does not call the GitHub API. When the labels of a pull request are not stored or older than
+ * {@code maxAgeSeconds}, for instance without any labels trait on the source, they are read from the pull request.
+ * When they cannot be read, recent enough last known labels are used; otherwise the pull request is built,
+ * as are other heads.
+ */
+public class LabelsBranchBuildStrategy extends BranchBuildStrategy {
+	private static final Logger LOGGER = Logger.getLogger(LabelsBranchBuildStrategy.class.getName());
+
+	private static final long MAX_AGE_MILLIS = TimeUnit.SECONDS.toMillis(SystemProperties.getInteger(
+			LabelsBranchBuildStrategy.class.getName() + ".maxAgeSeconds", PullRequestLabelsStep.DEFAULT_MAX_AGE_SECONDS));
+
+	/**
+	 * The labels.
+	 */
+	private final String labels;
+
+	/**
+	 * How the labels are matched.
+	 */
+	private final Rule rule;
+
+	private transient LabelsConfiguration configuration;
+
+	@DataBoundConstructor
+	public LabelsBranchBuildStrategy(String labels, Rule rule) {
+		this.labels = labels;
+		this.rule = rule;
+		this.configuration = LabelsConfiguration.parse(labels);
+	}
+
+	public String getLabels() {
+		return labels;
+	}
+
+	@NonNull
+	public Rule getRule() {
+		return rule == null ? Rule.MATCH_ANY : rule;
+	}
+
+	protected Object readResolve() {
+		this.configuration = LabelsConfiguration.parse(labels);
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isAutomaticBuild(@NonNull SCMSource source, @NonNull SCMHead head, @NonNull SCMRevision currRevision,
+									@CheckForNull SCMRevision prevRevision) {
+		if (!(source instanceof GitHubSCMSource) || !(head instanceof PullRequestSCMHead)) {
+			return true;
+		}
+		GitHubSCMSource gitHubSCMSource = (GitHubSCMSource) source;
+		PullRequestKey key = PullRequestKey.of(gitHubSCMSource, ((PullRequestSCMHead) head).getNumber());
+		LabelStore store = LabelStore.get();
+		LabelSet found = store.getLastKnown(key, MAX_AGE_MILLIS);
+		if (found == null) {
+			try {
+				GitHubLabelsClient client = createClient(gitHubSCMSource);
+				found = LabelsCircuitBreaker.forHost(key.getHost()).call(() -> LabelStoreWarmup.refresh(store, gitHubSCMSource, key, client));
+			} catch (IOException e) {
+				found = store.getLastKnown(key, LabelsCircuitBreaker.getMaxStalenessMillis());
+				if (found == null) {
+					LOGGER.log(Level.WARNING, "Could not read the labels of " + key + ", building it", e);
+					return true;
+				}
+				LabelsCircuitBreaker.degraded();
+				LOGGER.log(Level.FINE, "Could not read the labels of " + key + ", using the last known labels", e);
+			}
+			if (found == null) {
+				LOGGER.log(Level.FINE, "{0} is not open, building it", key);
+				return true;
+			}
+		}
+		boolean build = !configuration.isExcludedBy(getRule(), found);
+		LOGGER.log(Level.FINE, "{0} {1} with labels {2}", new Object[]{build ? "Building" : "Not building", key, found});
+		return build;
+	}
+
+	/**
+	 * Creates the client reading the labels of pull requests of a source.
+	 */
+	@NonNull
+	GitHubLabelsClient createClient(@NonNull GitHubSCMSource source) throws IOException {
+		return GitHubLabelsClient.forSource(source);
+	}
+
+	/**
+	 * How labels are matched, with the rules of the corresponding traits, see
+	 * {@link LabelsConfiguration#isExcludedBy(Rule, Collection)}.
+	 */
+	public enum Rule {
+		/**
+		 * Build pull requests with all the labels.
+		 */
+		MATCH_ALL("Has all the labels"),
+		/**
+		 * Build pull requests with at least one of the labels.
+		 */
+		MATCH_ANY("Has any of the labels"),
+		/**
+		 * Build pull requests with none of the labels.
+		 */
+		BLACKLIST("Has none of the labels");
+
+		private final String displayName;
+
+		Rule(String displayName) {
+			this.displayName = displayName;
+		}
+
+		public String getDisplayName() {
+			return displayName;
+		}
+	}
+
+	@Extension
+	public static class DescriptorImpl extends BranchBuildStrategyDescriptor {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getDisplayName() {
+			return "Build pull requests by labels";
+		}
+
+		@Restricted(NoExternalUse.class)
+		public FormValidation doCheckLabels(@QueryParameter String labels) {
+			if (labels == null || labels.trim().isEmpty()) {
+				return FormValidation.error("At least one label is required.");
+			}
+			return FormValidation.ok();
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import hudson.model.Cause;
+
+/**
+ * The cause of the scans triggered by label changes.
+ * It carries no state, so a single instance is shared by all the scans it triggers.
+ */
+public final class LabelsChangedCause extends Cause {
+
+	/**
+	 * The shared instance.
+	 */
+	public static final LabelsChangedCause INSTANCE = new LabelsChangedCause();
+
+	private LabelsChangedCause() {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getShortDescription() {
+		return "Triggered by labels change";
+	}
+
+	private Object readResolve() {
+		return INSTANCE;
+	}
+}
@@ -0,0 +1,188 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jenkins.util.SystemProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.kohsuke.github.HttpException;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calling the GitHub API of a host for labels after consecutive failures, such as rate limits, server errors
+ * or timeouts, so scans keep finishing quickly during GitHub incidents.
+ * Other client errors, such as a missing repository or a permission denied, only fail their call.
+ * <p>
+ * The breaker opens after {@code failureThreshold} consecutive failures. While open, label loads fail immediately
+ * and filters use the last known labels instead. After {@code openSeconds}, a single trial call is let through:
+ * its success closes the breaker and its failure keeps it open for another period.
+ */
+final class LabelsCircuitBreaker {
+
+	private static final int FAILURE_THRESHOLD =
+			SystemProperties.getInteger(LabelsCircuitBreaker.class.getName() + ".failureThreshold", 5);
+
+	private static final long OPEN_MILLIS = TimeUnit.SECONDS.toMillis(
+			SystemProperties.getInteger(LabelsCircuitBreaker.class.getName() + ".openSeconds", 60));
+
+	private static final long MAX_STALENESS_MILLIS = TimeUnit.MINUTES.toMillis(
+			SystemProperties.getInteger(LabelsCircuitBreaker.class.getName() + ".maxStalenessMinutes", 30));
+
+	private static final ConcurrentMap<String, LabelsCircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+	private static final AtomicLong DEGRADED_LOOKUPS = new AtomicLong();
+
+	private final int failureThreshold;
+
+	private final long openMillis;
+
+	private final LongSupplier clock;
+
+	private int failures;
+
+	/**
+	 * When the breaker opened or let the last trial call through, {@code -1} while closed.
+	 */
+	private long openedAt = -1;
+
+	LabelsCircuitBreaker(int failureThreshold, long openMillis, @NonNull LongSupplier clock) {
+		this.failureThreshold = failureThreshold;
+		this.openMillis = openMillis;
+		this.clock = clock;
+	}
+
+	/**
+	 * Gets the breaker of a host.
+	 *
+	 * @param host the host
+	 * @return the breaker
+	 */
+	@NonNull
+	static LabelsCircuitBreaker forHost(@NonNull String host) {
+		return BREAKERS.computeIfAbsent(host.toLowerCase(Locale.ENGLISH),
+				h -> new LabelsCircuitBreaker(FAILURE_THRESHOLD, OPEN_MILLIS, System::currentTimeMillis));
+	}
+
+	/**
+	 * Gets how old last known labels may be to be used while the GitHub API is unavailable.
+	 *
+	 * @return the staleness in milliseconds
+	 */
+	static long getMaxStalenessMillis() {
+		return MAX_STALENESS_MILLIS;
+	}
+
+	/**
+	 * Counts a lookup served from last known labels.
+	 */
+	static void degraded() {
+		DEGRADED_LOOKUPS.incrementAndGet();
+	}
+
+	/**
+	 * Gets the number of lookups served from last known labels.
+	 *
+	 * @return the number of lookups
+	 */
+	static long getDegradedLookups() {
+		return DEGRADED_LOOKUPS.get();
+	}
+
+	/**
+	 * Calls the GitHub API through the breaker.
+	 *
+	 * @param call the call
+	 * @param <T>  the type of the result
+	 * @return the result of the call
+	 * @throws IOException if the breaker is open or the call failed
+	 */
+	<T> T call(@NonNull Call<T> call) throws IOException {
+		if (!allowRequest()) {
+			throw new OpenException();
+		}
+		T result;
+		try {
+			result = call.call();
+		} catch (IOException e) {
+			if (isUnavailable(e)) {
+				onFailure();
+			} else {
+				onSuccess();
+			}
+			throw e;
+		}
+		onSuccess();
+		return result;
+	}
+
+	/**
+	 * Tells whether a failure means the GitHub API is unavailable. Server errors, rate limits, timeouts and other
+	 * I/O errors do, while the other client errors show the API answered.
+	 *
+	 * @param failure the failure
+	 * @return {@code true} if the failure counts against the breaker
+	 */
+	static boolean isUnavailable(@NonNull IOException failure) {
+		if (failure instanceof HttpException) {
+			int status = ((HttpException) failure).getResponseCode();
+			return status < 0 || status >= 500 || status == 429
+					|| status == 403 && StringUtils.containsIgnoreCase(failure.getMessage(), "rate limit");
+		}
+		return !(failure instanceof FileNotFoundException);
+	}
+
+	synchronized boolean allowRequest() {
+		if (openedAt < 0) {
+			return true;
+		}
+		long now = clock.getAsLong();
+		if (now - openedAt >= openMillis) {
+			openedAt = now;
+			return true;
+		}
+		return false;
+	}
+
+	synchronized void onSuccess() {
+		failures = 0;
+		openedAt = -1;
+	}
+
+	synchronized void onFailure() {
+		failures++;
+		if (failures >= failureThreshold) {
+			openedAt = clock.getAsLong();
+		}
+	}
+
+	synchronized boolean isOpen() {
+		return openedAt >= 0;
+	}
+
+	/**
+	 * A call to the GitHub API.
+	 *
+	 * @param <T> the type of the result
+	 */
+	@FunctionalInterface
+	interface Call<T> {
+		T call() throws IOException;
+	}
+
+	/**
+	 * Signals that a call was not made because the breaker is open.
+	 */
+	static final class OpenException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		OpenException() {
+			super("The GitHub API failed repeatedly, label requests are suspended");
+		}
+	}
+}
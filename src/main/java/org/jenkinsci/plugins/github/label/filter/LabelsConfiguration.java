@@ -0,0 +1,290 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable snapshot of the labels configured on a trait.
+ * It is built once per configuration and can be shared by concurrent scans.
+ * Pull request labels given as a {@link LabelSet} are matched exactly by comparing dictionary ids.
+ */
+final class LabelsConfiguration {
+
+	private static final Pattern SEPARATOR = Pattern.compile("\\s*,\\s*");
+
+	private static final LabelsConfiguration EMPTY = new LabelsConfiguration(Collections.emptyList(), null);
+
+	/**
+	 * The configured labels in configuration order, without duplicates.
+	 */
+	private final List<String> labels;
+
+	/**
+	 * The configured labels, normalized when matching is normalized, for constant time lookups.
+	 */
+	private final Set<String> labelSet;
+
+	/**
+	 * The configured labels joined for logging.
+	 */
+	private final String displayString;
+
+	/**
+	 * The normalizer, {@code null} when labels are matched exactly.
+	 */
+	@CheckForNull
+	private final LabelNormalizer normalizer;
+
+	/**
+	 * The hashes of the normalized labels in ascending order.
+	 */
+	private final int[] hashes;
+
+	/**
+	 * The normalized labels in the order of {@link #hashes}.
+	 */
+	private final String[] normalizedLabels;
+
+	/**
+	 * The index in {@link #labels} of each entry of {@link #hashes}.
+	 */
+	private final int[] indices;
+
+	/**
+	 * The {@link LabelDictionary} ids of the configured labels in ascending order, for exact matching.
+	 * Interned on the first match against a {@link LabelSet}, so configurations only evaluated against label
+	 * names, such as simulations, do not grow the dictionary.
+	 */
+	@CheckForNull
+	private volatile int[] ids;
+
+	private LabelsConfiguration(List<String> labels, @CheckForNull LabelNormalizer normalizer) {
+		Map<String, String> byKey = new LinkedHashMap<>();
+		for (String label : labels) {
+			String key = normalizer == null ? label : normalizer.normalize(label);
+			if (!key.isEmpty()) {
+				byKey.putIfAbsent(key, label);
+			}
+		}
+		this.labels = Collections.unmodifiableList(new ArrayList<>(byKey.values()));
+		this.labelSet = Collections.unmodifiableSet(byKey.keySet());
+		this.displayString = String.join(",", this.labels);
+		this.normalizer = normalizer;
+
+		String[] keys = byKey.keySet().toArray(new String[0]);
+		Integer[] order = new Integer[keys.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Integer.compare(keys[a].hashCode(), keys[b].hashCode()));
+		this.hashes = new int[keys.length];
+		this.normalizedLabels = new String[keys.length];
+		this.indices = new int[keys.length];
+		for (int i = 0; i < order.length; i++) {
+			hashes[i] = keys[order[i]].hashCode();
+			normalizedLabels[i] = keys[order[i]];
+			indices[i] = order[i];
+		}
+	}
+
+	private int[] getIds() {
+		int[] ids = this.ids;
+		if (ids == null) {
+			ids = new int[normalizedLabels.length];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = LabelDictionary.get().intern(normalizedLabels[i]);
+			}
+			Arrays.sort(ids);
+			this.ids = ids;
+		}
+		return ids;
+	}
+
+	/**
+	 * Parses a comma separated labels string for exact matching.
+	 *
+	 * @param labels the labels string
+	 * @return the configuration
+	 */
+	@NonNull
+	static LabelsConfiguration parse(@CheckForNull String labels) {
+		return parse(labels, null);
+	}
+
+	/**
+	 * Parses a comma separated labels string.
+	 *
+	 * @param labels     the labels string
+	 * @param normalizer the normalizer or {@code null} for exact matching
+	 * @return the configuration
+	 */
+	@NonNull
+	static LabelsConfiguration parse(@CheckForNull String labels, @CheckForNull LabelNormalizer normalizer) {
+		if (labels == null || labels.trim().isEmpty()) {
+			return normalizer == null ? EMPTY : new LabelsConfiguration(Collections.emptyList(), normalizer);
+		}
+		return new LabelsConfiguration(Arrays.asList(SEPARATOR.split(labels.trim())), normalizer);
+	}
+
+	@NonNull
+	List<String> getLabels() {
+		return labels;
+	}
+
+	boolean isEmpty() {
+		return labels.isEmpty();
+	}
+
+	/**
+	 * Gets the index of the configured label a label matches.
+	 * Normalized lookups compare precomputed hashes and do not allocate.
+	 *
+	 * @param label the label name
+	 * @return the index in {@link #getLabels()} or {@code -1} if the label is not configured
+	 */
+	int indexOf(@NonNull String label) {
+		if (normalizer == null) {
+			if (!labelSet.contains(label)) {
+				return -1;
+			}
+			return labels.indexOf(label);
+		}
+		int hash = normalizer.hash(label);
+		int i = Arrays.binarySearch(hashes, hash);
+		if (i < 0) {
+			return -1;
+		}
+		while (i > 0 && hashes[i - 1] == hash) {
+			i--;
+		}
+		for (; i < hashes.length && hashes[i] == hash; i++) {
+			if (normalizer.matches(label, normalizedLabels[i])) {
+				return indices[i];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks whether a label is one of the configured labels.
+	 *
+	 * @param label the label name
+	 * @return {@code true} if the label is configured
+	 */
+	boolean matches(@NonNull String label) {
+		if (normalizer == null) {
+			return labelSet.contains(label);
+		}
+		return indexOf(label) >= 0;
+	}
+
+	/**
+	 * Checks whether at least one of the given labels is configured.
+	 *
+	 * @param foundLabels the labels of a pull request
+	 * @return {@code true} if any of the labels is configured
+	 */
+	boolean matchesAny(@NonNull Collection<String> foundLabels) {
+		if (normalizer == null && foundLabels instanceof LabelSet) {
+			LabelSet labelSet = (LabelSet) foundLabels;
+			int[] ids = getIds();
+			for (int i = 0; i < labelSet.size(); i++) {
+				if (Arrays.binarySearch(ids, labelSet.idAt(i)) >= 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+		for (String label : foundLabels) {
+			if (matches(label)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether all the configured labels are among the given labels.
+	 *
+	 * @param foundLabels the labels of a pull request
+	 * @return {@code true} if every configured label was found
+	 */
+	boolean isMatchedByAll(@NonNull Collection<String> foundLabels) {
+		if (normalizer == null && foundLabels instanceof LabelSet) {
+			for (int id : getIds()) {
+				if (!((LabelSet) foundLabels).containsId(id)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (normalizer == null) {
+			return foundLabels.containsAll(labelSet);
+		}
+		if (labels.size() <= Long.SIZE) {
+			long found = 0;
+			for (String label : foundLabels) {
+				int index = indexOf(label);
+				if (index >= 0) {
+					found |= 1L << index;
+				}
+			}
+			return found == (labels.size() == Long.SIZE ? -1L : (1L << labels.size()) - 1);
+		}
+		BitSet found = new BitSet(labels.size());
+		for (String label : foundLabels) {
+			int index = indexOf(label);
+			if (index >= 0) {
+				found.set(index);
+			}
+		}
+		return found.cardinality() == labels.size();
+	}
+
+	/**
+	 * Tells whether a pull request with the given labels is excluded by a rule. No configured label excludes nothing.
+	 *
+	 * @param rule        how the configured labels are matched
+	 * @param foundLabels the labels of a pull request
+	 * @return {@code true} if excluded
+	 */
+	boolean isExcludedBy(@NonNull LabelsBranchBuildStrategy.Rule rule, @NonNull Collection<String> foundLabels) {
+		if (isEmpty()) {
+			return false;
+		}
+		switch (rule) {
+			case MATCH_ALL:
+				return !isMatchedByAll(foundLabels);
+			case BLACKLIST:
+				return matchesAny(foundLabels);
+			default:
+				return !matchesAny(foundLabels);
+		}
+	}
+
+	/**
+	 * Gets the configured labels joined for logging.
+	 *
+	 * @return the joined labels
+	 */
+	@NonNull
+	String getDisplayString() {
+		return displayString;
+	}
+
+	@Override
+	public String toString() {
+		return displayString;
+	}
+}
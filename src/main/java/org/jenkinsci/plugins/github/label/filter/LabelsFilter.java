@@ -1,4 +1,30 @@
 package org.jenkinsci.plugins.github.label.filter;
 
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Collection;
+
 public interface LabelsFilter {
+
+	/**
+	 * Decides whether a pull request with the given labels is excluded, without logging nor fetching anything.
+	 * Filters which do not implement it exclude nothing.
+	 *
+	 * @param labels the label names of the pull request
+	 * @return {@code true} if the pull request is excluded
+	 */
+	default boolean isExcludedBy(@NonNull Collection<String> labels) {
+		return false;
+	}
+
+	/**
+	 * Checks whether a label is one of the labels the filter is configured with.
+	 * Filters which do not implement it refer to no label.
+	 *
+	 * @param label the label name
+	 * @return {@code true} if the filter depends on the label
+	 */
+	default boolean refersTo(@NonNull String label) {
+		return false;
+	}
 }
@@ -0,0 +1,132 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates a labels filter against the labels already known for the pull requests of some sources,
+ * without calling GitHub nor scheduling any indexing.
+ */
+final class LabelsFilterSimulation {
+
+	private final List<Repository> repositories = new ArrayList<>();
+
+	private long durationMillis;
+
+	private LabelsFilterSimulation() {
+	}
+
+	/**
+	 * Evaluates a filter against the stored labels of the pull requests of sources.
+	 *
+	 * @param filter  the filter
+	 * @param sources the sources
+	 * @return the simulation
+	 */
+	@NonNull
+	static LabelsFilterSimulation run(@NonNull LabelsFilter filter, @NonNull Collection<GitHubSCMSource> sources) {
+		LabelsFilterSimulation simulation = new LabelsFilterSimulation();
+		long start = System.nanoTime();
+		for (GitHubSCMSource source : sources) {
+			Repository repository = new Repository(PullRequestKey.hostOf(source.getApiUri()), source.getRepoOwner(), source.getRepository());
+			Map<Integer, LabelSet> labels = LabelStore.get().snapshot(repository.host, repository.owner, repository.name);
+			for (Map.Entry<Integer, LabelSet> entry : labels.entrySet()) {
+				// evaluated as plain names, so the labels being simulated are not interned into the dictionary
+				if (filter.isExcludedBy(new ArrayList<>(entry.getValue()))) {
+					repository.excluded.add(entry.getKey());
+				} else {
+					repository.included.add(entry.getKey());
+				}
+			}
+			simulation.repositories.add(repository);
+		}
+		simulation.durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		return simulation;
+	}
+
+	int getIncludedCount() {
+		return repositories.stream().mapToInt(repository -> repository.included.size()).sum();
+	}
+
+	int getExcludedCount() {
+		return repositories.stream().mapToInt(repository -> repository.excluded.size()).sum();
+	}
+
+	long getDurationMillis() {
+		return durationMillis;
+	}
+
+	/**
+	 * Gets a one line summary for the configuration form.
+	 *
+	 * @return the summary
+	 */
+	@NonNull
+	String getSummary() {
+		if (repositories.isEmpty()) {
+			return "No GitHub repository to simulate against.";
+		}
+		StringBuilder summary = new StringBuilder();
+		for (Repository repository : repositories) {
+			summary.append(String.format("%s/%s: includes %s, excludes %s. ", repository.owner, repository.name,
+					repository.included.isEmpty() ? "none" : repository.included,
+					repository.excluded.isEmpty() ? "none" : repository.excluded));
+		}
+		summary.append(String.format("Evaluated %d known pull requests in %d ms.", getIncludedCount() + getExcludedCount(), durationMillis));
+		return summary.toString();
+	}
+
+	/**
+	 * Gets the result as JSON.
+	 *
+	 * @return the result
+	 */
+	@NonNull
+	JSONObject toJSON() {
+		JSONArray array = new JSONArray();
+		for (Repository repository : repositories) {
+			JSONObject json = new JSONObject();
+			json.put("host", repository.host);
+			json.put("owner", repository.owner);
+			json.put("repository", repository.name);
+			json.put("included", JSONArray.fromObject(repository.included));
+			json.put("excluded", JSONArray.fromObject(repository.excluded));
+			array.add(json);
+		}
+		JSONObject json = new JSONObject();
+		json.put("repositories", array);
+		json.put("included", getIncludedCount());
+		json.put("excluded", getExcludedCount());
+		json.put("durationMillis", durationMillis);
+		return json;
+	}
+
+	private static final class Repository {
+
+		private final String host;
+
+		private final String owner;
+
+		private final String name;
+
+		private final SortedSet<Integer> included = new TreeSet<>();
+
+		private final SortedSet<Integer> excluded = new TreeSet<>();
+
+		Repository(String host, String owner, String name) {
+			this.host = host;
+			this.owner = owner;
+			this.name = name;
+		}
+	}
+}
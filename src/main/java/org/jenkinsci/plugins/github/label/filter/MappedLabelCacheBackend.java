@@ -0,0 +1,50 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Caches labels in memory-mapped files under {@code JENKINS_HOME/github-label-filter/index},
+ * see {@link MappedLabelStorage}.
+ */
+public class MappedLabelCacheBackend extends LabelCacheBackend {
+
+	@DataBoundConstructor
+	public MappedLabelCacheBackend() {
+	}
+
+	@NonNull
+	@Override
+	LabelStorage createStorage() throws IOException {
+		return new MappedLabelStorage(new File(LabelStoreWarmup.getDirectory(), "index"));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o != null && o.getClass() == getClass();
+	}
+
+	@Override
+	public int hashCode() {
+		return getClass().hashCode();
+	}
+
+	@Extension(ordinal = 50)
+	@Symbol("mapped")
+	public static class DescriptorImpl extends LabelCacheBackendDescriptor {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@NonNull
+		@Override
+		public String getDisplayName() {
+			return "Memory-mapped files on disk";
+		}
+	}
+}
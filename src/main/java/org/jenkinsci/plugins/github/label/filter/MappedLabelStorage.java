@@ -0,0 +1,635 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UTFDataFormatException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the entries of a {@link LabelStore} in memory-mapped files, one per repository, so the heap used does not
+ * depend on the number of pull requests and the entries survive a restart.
+ * <p>
+ * The file of a repository is an array of fixed size records, each holding a pull request number, its update times
+ * and up to {@value #MAX_LABELS} label ids. Records are given to the stored pull requests lowest free record first,
+ * so the size of a file follows the number of pull requests stored rather than their numbers. The record of each
+ * number is kept in a map rebuilt when the file is opened, the only heap used per pull request.
+ * Label ids are persistent, their names are appended to a names file shared by the repositories before any record
+ * refers to them.
+ * <p>
+ * Records are written in place under a sequence lock: the sequence is odd while a record is written, and a CRC of
+ * the record is written with it. Java 8 has no ordered accesses to a mapped buffer, so the sequence only makes
+ * readers skip records being written, and the CRC is what makes a read consistent: readers copy the record into a
+ * buffer of their thread, then retry if the sequence changed or the CRC of the copy does not match, and only
+ * allocate the entry they return. A record left odd or with a wrong CRC by a crash is cleared when its file is
+ * opened, so its labels are loaded again.
+ * Pull requests with more labels than a record holds, or beyond the records of the largest mappable file, are not
+ * stored and their labels are loaded each time they are needed.
+ */
+final class MappedLabelStorage implements LabelStorage {
+	private static final Logger LOGGER = Logger.getLogger(MappedLabelStorage.class.getName());
+
+	private static final int MAGIC = 0x4C424C49;
+
+	private static final int VERSION = 3;
+
+	private static final int HEADER_SIZE = 16;
+
+	static final int RECORD_SIZE = 128;
+
+	static final int MAX_LABELS = 49;
+
+	private static final int SEQUENCE = 0;
+
+	private static final int CRC = 4;
+
+	private static final int UPDATED_AT = 8;
+
+	private static final int STORED_AT = 16;
+
+	private static final int NUMBER = 24;
+
+	private static final int COUNT = 28;
+
+	private static final int IDS = 30;
+
+	private static final int MIN_CAPACITY = 64;
+
+	private static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+	private static final int MAX_READ_ATTEMPTS = 100;
+
+	private static final String EXTENSION = ".idx";
+
+	/**
+	 * The copy of a record a thread reads, so reads only allocate the entry they return.
+	 */
+	private static final ThreadLocal<RecordCopy> COPIES = ThreadLocal.withInitial(RecordCopy::new);
+
+	private final File directory;
+
+	private final LabelNames names;
+
+	private final ConcurrentMap<String, RepositoryIndex> indexes = new ConcurrentHashMap<>();
+
+	/**
+	 * Opens the storage of a directory, creating the directory if needed.
+	 *
+	 * @param directory the directory
+	 * @throws IOException if the names file could not be read
+	 */
+	MappedLabelStorage(@NonNull File directory) throws IOException {
+		Files.createDirectories(directory.toPath());
+		this.directory = directory;
+		this.names = new LabelNames(new File(directory, "labels.names"));
+	}
+
+	@CheckForNull
+	@Override
+	public LabelStore.Entry get(@NonNull PullRequestKey key) {
+		RepositoryIndex index = getIndex(key, false);
+		return index == null ? null : index.read(key.getNumber());
+	}
+
+	@Override
+	public void put(@NonNull PullRequestKey key, @NonNull LabelStore.Entry entry) {
+		compute(key, cached -> entry);
+	}
+
+	@CheckForNull
+	@Override
+	public LabelStore.Entry compute(@NonNull PullRequestKey key, @NonNull UnaryOperator<LabelStore.Entry> function) {
+		if (key.getNumber() < 0) {
+			return function.apply(null);
+		}
+		RepositoryIndex index = getIndex(key, true);
+		synchronized (index) {
+			LabelStore.Entry cached = index.read(key.getNumber());
+			LabelStore.Entry computed = function.apply(cached);
+			if (computed != cached) {
+				index.write(key.getNumber(), computed);
+			}
+			return computed;
+		}
+	}
+
+	@Override
+	public void invalidate(@NonNull PullRequestKey key) {
+		RepositoryIndex index = getIndex(key, false);
+		if (index != null) {
+			synchronized (index) {
+				index.write(key.getNumber(), null);
+			}
+		}
+	}
+
+	@Override
+	public void forEach(@NonNull BiConsumer<PullRequestKey, LabelStore.Entry> action) {
+		for (String[] repository : getRepositories()) {
+			forEachIn(repository[0], repository[1], repository[2], action);
+		}
+	}
+
+	@Override
+	public void forEachIn(@NonNull String host, @NonNull String owner, @NonNull String repository,
+						  @NonNull BiConsumer<PullRequestKey, LabelStore.Entry> action) {
+		RepositoryIndex index = getIndex(new PullRequestKey(host, owner, repository, 0), false);
+		if (index == null) {
+			return;
+		}
+		int[] numbers = index.slots.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+		for (int number : numbers) {
+			LabelStore.Entry entry = index.read(number);
+			if (entry != null) {
+				action.accept(new PullRequestKey(host, owner, repository, number), entry);
+			}
+		}
+	}
+
+	@Override
+	public long size() {
+		long size = 0;
+		for (String[] repository : getRepositories()) {
+			RepositoryIndex index = getIndex(new PullRequestKey(repository[0], repository[1], repository[2], 0), false);
+			if (index != null) {
+				size += index.slots.size();
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public boolean isPersistent() {
+		return true;
+	}
+
+	@Override
+	public void flush() {
+		for (RepositoryIndex index : indexes.values()) {
+			index.buffer.force();
+		}
+	}
+
+	@Override
+	public void close() {
+		flush();
+		for (RepositoryIndex index : indexes.values()) {
+			index.close();
+		}
+		names.close();
+	}
+
+	@CheckForNull
+	private RepositoryIndex getIndex(PullRequestKey key, boolean create) {
+		String name = encode(key.getHost()) + "~" + encode(key.getOwner()) + "~" + encode(key.getRepository());
+		RepositoryIndex index = indexes.get(name);
+		if (index != null) {
+			return index;
+		}
+		File file = new File(directory, name + EXTENSION);
+		if (!create && !file.isFile()) {
+			return null;
+		}
+		try {
+			return indexes.computeIfAbsent(name, k -> {
+				try {
+					return new RepositoryIndex(file);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			LOGGER.log(Level.WARNING, "Could not open the label index " + file, e.getCause());
+			if (create) {
+				throw e;
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the host, owner and name of the repositories with a file, in file name order.
+	 */
+	private List<String[]> getRepositories() {
+		String[] files = directory.list((dir, name) -> name.endsWith(EXTENSION));
+		if (files == null) {
+			return Collections.emptyList();
+		}
+		Arrays.sort(files);
+		List<String[]> repositories = new ArrayList<>(files.length);
+		for (String file : files) {
+			String[] repository = decode(file.substring(0, file.length() - EXTENSION.length()));
+			if (repository != null) {
+				repositories.add(repository);
+			}
+		}
+		return repositories;
+	}
+
+	private static String encode(String part) {
+		try {
+			return URLEncoder.encode(part, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@CheckForNull
+	private static String[] decode(String name) {
+		String[] parts = name.split("~", -1);
+		if (parts.length != 3) {
+			return null;
+		}
+		try {
+			for (int i = 0; i < parts.length; i++) {
+				parts[i] = URLDecoder.decode(parts[i], "UTF-8");
+			}
+		} catch (UnsupportedEncodingException | IllegalArgumentException e) {
+			return null;
+		}
+		return parts;
+	}
+
+	/**
+	 * The records of a repository.
+	 */
+	private final class RepositoryIndex {
+
+		private final FileChannel channel;
+
+		private volatile MappedByteBuffer buffer;
+
+		/**
+		 * The record of each stored pull request number, published after the record is written.
+		 */
+		private final ConcurrentMap<Integer, Integer> slots = new ConcurrentHashMap<>();
+
+		/**
+		 * The free records, guarded by the lock of the index.
+		 */
+		private final BitSet free = new BitSet();
+
+		/**
+		 * The number of records, grows under the lock of the index.
+		 */
+		private int capacity;
+
+		RepositoryIndex(File file) throws IOException {
+			this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			long size = channel.size();
+			if (size > 0) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				channel.read(header, 0);
+				header.flip();
+				if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+					channel.close();
+					throw new IOException(file + " is not a label index");
+				}
+				if (header.getInt() != VERSION || header.getInt() != RECORD_SIZE) {
+					LOGGER.log(Level.INFO, "Dropping the label index {0} written by another version", file);
+					channel.truncate(0);
+					size = 0;
+				}
+			}
+			if (size == 0) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(0).flip();
+				channel.write(header, 0);
+			}
+			map((int) Math.min(Math.max(MIN_CAPACITY, (size - HEADER_SIZE) / RECORD_SIZE), MAX_RECORDS));
+			recover();
+		}
+
+		private void map(int records) throws IOException {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) records * RECORD_SIZE);
+			capacity = records;
+		}
+
+		/**
+		 * Rebuilds the records of the pull request numbers and clears the records left half written by a crash.
+		 */
+		private void recover() {
+			int cleared = 0;
+			RecordCopy copy = COPIES.get();
+			for (int slot = 0; slot < capacity; slot++) {
+				int offset = offset(slot);
+				boolean stored = buffer.getLong(offset + STORED_AT) != 0;
+				if ((buffer.getInt(offset + SEQUENCE) & 1) != 0
+						|| stored && buffer.getInt(offset + CRC) != copy.copy(buffer, offset)) {
+					writeRecord(slot, 0, null, null);
+					cleared++;
+					stored = false;
+				}
+				if (!stored || slots.putIfAbsent(buffer.getInt(offset + NUMBER), slot) != null) {
+					free.set(slot);
+				}
+			}
+			if (cleared > 0) {
+				LOGGER.log(Level.WARNING, "Cleared {0} incomplete records of a label index", cleared);
+			}
+		}
+
+		@CheckForNull
+		LabelStore.Entry read(int number) {
+			Integer slot = slots.get(number);
+			if (slot == null) {
+				return null;
+			}
+			RecordCopy copy = COPIES.get();
+			ByteBuffer record = copy.record;
+			for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+				MappedByteBuffer records = buffer;
+				int offset = offset(slot);
+				int sequence = records.getInt(offset + SEQUENCE);
+				if ((sequence & 1) != 0) {
+					Thread.yield();
+					continue;
+				}
+				int crc = copy.copy(records, offset);
+				if (records.getInt(offset + SEQUENCE) != sequence) {
+					continue;
+				}
+				long storedAt = record.getLong(STORED_AT);
+				if (storedAt == 0) {
+					return null;
+				}
+				if (record.getInt(CRC) != crc) {
+					// torn by a write the sequence did not reveal
+					Thread.yield();
+					continue;
+				}
+				if (record.getInt(NUMBER) != number) {
+					// the record was freed and given to another pull request
+					return null;
+				}
+				int labelCount = record.getShort(COUNT);
+				if (labelCount < 0 || labelCount > MAX_LABELS) {
+					return null;
+				}
+				int[] ids = new int[labelCount];
+				for (int i = 0; i < labelCount; i++) {
+					ids[i] = names.localId(record.getChar(IDS + 2 * i));
+					if (ids[i] < 0) {
+						return null;
+					}
+				}
+				return new LabelStore.Entry(LabelSet.ofIds(ids), record.getLong(UPDATED_AT), storedAt);
+			}
+			return null;
+		}
+
+		/**
+		 * Writes the record of a pull request, under the lock of the index.
+		 *
+		 * @param number the pull request number
+		 * @param entry  the entry, or {@code null} to clear the record
+		 */
+		void write(int number, @CheckForNull LabelStore.Entry entry) {
+			char[] ids = entry == null ? null : toPersistentIds(entry.getLabels());
+			if (entry != null && ids == null) {
+				entry = null;
+			}
+			Integer slot = slots.get(number);
+			if (slot == null) {
+				if (entry == null) {
+					return;
+				}
+				slot = allocate();
+				if (slot < 0) {
+					return;
+				}
+			}
+			writeRecord(slot, number, entry, ids);
+			if (entry == null) {
+				slots.remove(number);
+				free.set(slot);
+			} else {
+				slots.put(number, slot);
+			}
+		}
+
+		private void writeRecord(int slot, int number, @CheckForNull LabelStore.Entry entry, @CheckForNull char[] ids) {
+			MappedByteBuffer records = buffer;
+			int offset = offset(slot);
+			int sequence = (records.getInt(offset + SEQUENCE) + 1) & ~1;
+			records.putInt(offset + SEQUENCE, sequence + 1);
+			for (int i = UPDATED_AT; i < RECORD_SIZE; i += 8) {
+				records.putLong(offset + i, 0L);
+			}
+			if (entry != null) {
+				records.putLong(offset + UPDATED_AT, entry.getUpdatedAtMillis());
+				records.putLong(offset + STORED_AT, entry.getStoredAt());
+				records.putInt(offset + NUMBER, number);
+				records.putShort(offset + COUNT, (short) ids.length);
+				for (int i = 0; i < ids.length; i++) {
+					records.putChar(offset + IDS + 2 * i, ids[i]);
+				}
+			}
+			records.putInt(offset + CRC, COPIES.get().copy(records, offset));
+			records.putInt(offset + SEQUENCE, sequence + 2);
+		}
+
+		/**
+		 * Takes the lowest free record, growing the file if there is none.
+		 *
+		 * @return the record or {@code -1} if the file cannot grow
+		 */
+		private int allocate() {
+			int slot = free.nextSetBit(0);
+			if (slot < 0) {
+				if (capacity >= MAX_RECORDS) {
+					return -1;
+				}
+				slot = capacity;
+				try {
+					map((int) Math.min(2L * capacity, MAX_RECORDS));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				free.set(slot, capacity);
+			}
+			free.clear(slot);
+			return slot;
+		}
+
+		@CheckForNull
+		private char[] toPersistentIds(LabelSet labels) {
+			if (labels.size() > MAX_LABELS) {
+				return null;
+			}
+			char[] ids = new char[labels.size()];
+			for (int i = 0; i < ids.length; i++) {
+				int id = names.persistentId(labels.get(i));
+				if (id < 0) {
+					return null;
+				}
+				ids[i] = (char) id;
+			}
+			return ids;
+		}
+
+		private int offset(int slot) {
+			return HEADER_SIZE + slot * RECORD_SIZE;
+		}
+
+		void close() {
+			closeQuietly(channel);
+		}
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			LOGGER.log(Level.FINEST, "Could not close a label index file", e);
+		}
+	}
+
+	/**
+	 * A copy of a record and its CRC, reused by a thread.
+	 */
+	private static final class RecordCopy {
+
+		private final byte[] bytes = new byte[RECORD_SIZE];
+
+		private final ByteBuffer record = ByteBuffer.wrap(bytes);
+
+		private final CRC32 crc = new CRC32();
+
+		/**
+		 * Copies a record.
+		 *
+		 * @return the CRC of the copy
+		 */
+		int copy(ByteBuffer records, int offset) {
+			for (int i = 0; i < RECORD_SIZE; i++) {
+				bytes[i] = records.get(offset + i);
+			}
+			crc.reset();
+			crc.update(bytes, UPDATED_AT, RECORD_SIZE - UPDATED_AT);
+			return (int) crc.getValue();
+		}
+	}
+
+	/**
+	 * The names of the persistent label ids, appended to a file in id order.
+	 */
+	private static final class LabelNames {
+
+		private static final int MAX_NAMES = Character.MAX_VALUE + 1;
+
+		private final FileChannel channel;
+
+		private final Map<String, Integer> ids = new HashMap<>();
+
+		private final List<String> names = new ArrayList<>();
+
+		/**
+		 * The {@link LabelDictionary} ids by persistent id, {@code -1} past the last name, replaced when it grows.
+		 */
+		private volatile int[] localIds = new int[0];
+
+		LabelNames(File file) throws IOException {
+			this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			long valid = 0;
+			DataInputStream in = new DataInputStream(Channels.newInputStream(channel.position(0)));
+			try {
+				while (true) {
+					String name = in.readUTF();
+					add(name);
+					valid = channel.position();
+				}
+			} catch (EOFException | UTFDataFormatException e) {
+				// a name cut by a crash is dropped, no record refers to it
+			}
+			channel.truncate(valid);
+			channel.position(valid);
+		}
+
+		/**
+		 * Gets the {@link LabelDictionary} id of a persistent id.
+		 *
+		 * @return the id or {@code -1} if unknown
+		 */
+		int localId(int persistentId) {
+			int[] current = localIds;
+			return persistentId < current.length ? current[persistentId] : -1;
+		}
+
+		/**
+		 * Gets the persistent id of a name, appending the name to the file if needed.
+		 *
+		 * @return the id or {@code -1} if there are too many names
+		 */
+		synchronized int persistentId(String name) {
+			Integer id = ids.get(name);
+			if (id != null) {
+				return id;
+			}
+			if (names.size() >= MAX_NAMES) {
+				return -1;
+			}
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				new DataOutputStream(bytes).writeUTF(name);
+				ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+				while (record.hasRemaining()) {
+					channel.write(record);
+				}
+				channel.force(false);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return add(name);
+		}
+
+		void close() {
+			closeQuietly(channel);
+		}
+
+		private int add(String name) {
+			int id = names.size();
+			names.add(name);
+			ids.put(name, id);
+			int[] current = localIds;
+			if (id == current.length) {
+				current = Arrays.copyOf(current, Math.max(64, id * 2));
+				Arrays.fill(current, id, current.length, -1);
+			}
+			current[id] = LabelDictionary.get().intern(name);
+			localIds = current;
+			return id;
+		}
+	}
+}
@@ -0,0 +1,347 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.util.FormValidation;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.trait.SCMHeadFilter;
+import jenkins.scm.api.trait.SCMSourceRequest;
+import jenkins.scm.impl.trait.Discovery;
+import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSourceRequest;
+import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GHUser;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A {@link Discovery} trait for GitHub that selects pull requests by labels, draft state, base branch, author,
+ * author association and age, in one pass over each pull request.
+ * <p>
+ * The pull request is looked up once, the attributes listed with it are checked first and the labels are only
+ * looked up, through the {@link LabelStore}, when labels are configured and no other attribute excluded it.
+ * Draft state and author association are read when the installed GitHub API exposes them.
+ */
+public class PullRequestAttributesFilterTrait extends BaseGithubExtendedFilterTrait implements LabelsFilter {
+
+	private static final Method IS_DRAFT = findMethod("isDraft");
+
+	private static final Method GET_AUTHOR_ASSOCIATION = findMethod("getAuthorAssociation");
+
+	/**
+	 * How the labels select pull requests.
+	 */
+	private LabelsBranchBuildStrategy.Rule labelsRule;
+
+	/**
+	 * Whether draft pull requests are excluded.
+	 */
+	private boolean excludeDrafts;
+
+	/**
+	 * Comma separated regular expressions of the base branches, or {@code null} for any.
+	 */
+	private String baseBranches;
+
+	/**
+	 * Comma separated logins of the authors, or {@code null} for any.
+	 */
+	private String authors;
+
+	/**
+	 * Comma separated author associations, such as {@code MEMBER}, or {@code null} for any.
+	 */
+	private String authorAssociations;
+
+	/**
+	 * The maximum age of pull requests in days, or {@code 0} for any.
+	 */
+	private int maxAgeDays;
+
+	private transient List<Pattern> baseBranchPatterns;
+
+	/**
+	 * Constructor for stapler.
+	 *
+	 * @param labels Labels for filtering pull request labels
+	 */
+	@DataBoundConstructor
+	public PullRequestAttributesFilterTrait(String labels) {
+		super(labels);
+	}
+
+	@Override
+	protected Object readResolve() {
+		baseBranchPatterns = null;
+		return super.readResolve();
+	}
+
+	/**
+	 * Gets how the labels select pull requests.
+	 *
+	 * @return the rule
+	 */
+	@NonNull
+	public LabelsBranchBuildStrategy.Rule getLabelsRule() {
+		return labelsRule == null ? LabelsBranchBuildStrategy.Rule.MATCH_ANY : labelsRule;
+	}
+
+	@DataBoundSetter
+	public void setLabelsRule(LabelsBranchBuildStrategy.Rule labelsRule) {
+		this.labelsRule = labelsRule;
+	}
+
+	public boolean isExcludeDrafts() {
+		return excludeDrafts;
+	}
+
+	@DataBoundSetter
+	public void setExcludeDrafts(boolean excludeDrafts) {
+		this.excludeDrafts = excludeDrafts;
+	}
+
+	public String getBaseBranches() {
+		return baseBranches;
+	}
+
+	@DataBoundSetter
+	public void setBaseBranches(String baseBranches) {
+		this.baseBranches = StringUtils.trimToNull(baseBranches);
+		this.baseBranchPatterns = null;
+	}
+
+	public String getAuthors() {
+		return authors;
+	}
+
+	@DataBoundSetter
+	public void setAuthors(String authors) {
+		this.authors = StringUtils.trimToNull(authors);
+	}
+
+	public String getAuthorAssociations() {
+		return authorAssociations;
+	}
+
+	@DataBoundSetter
+	public void setAuthorAssociations(String authorAssociations) {
+		this.authorAssociations = StringUtils.trimToNull(authorAssociations);
+	}
+
+	public int getMaxAgeDays() {
+		return maxAgeDays;
+	}
+
+	@DataBoundSetter
+	public void setMaxAgeDays(int maxAgeDays) {
+		this.maxAgeDays = Math.max(0, maxAgeDays);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isExcludedBy(@NonNull Collection<String> labels) {
+		return getConfiguration().isExcludedBy(getLabelsRule(), labels);
+	}
+
+	protected SCMHeadFilter getScmHeadFilter() {
+		return new SCMHeadFilter() {
+
+			@Override
+			public boolean isExcluded(@NonNull SCMSourceRequest request, @NonNull SCMHead head) throws IOException, InterruptedException {
+				if (!(request instanceof GitHubSCMSourceRequest) || !(head instanceof PullRequestSCMHead)) {
+					return false;
+				}
+				GitHubSCMSourceRequest githubRequest = (GitHubSCMSourceRequest) request;
+				return decide((PullRequestSCMHead) head, () -> {
+					GHPullRequest pullRequest = getPullRequest(githubRequest, (PullRequestSCMHead) head);
+					if (pullRequest == null) {
+						return Decision.of(0, null);
+					}
+					String reason = getExclusionReason(githubRequest, pullRequest);
+					int labelCount = 0;
+					if (reason == null && !getConfiguration().isEmpty()) {
+						LabelSet labels = getPullRequestLabels(githubRequest, pullRequest);
+						labelCount = labels.size();
+						if (isExcludedBy(labels)) {
+							reason = "labels do not satisfy \"" + getLabelsRule().getDisplayName() + ": "
+									+ getConfiguration().getDisplayString() + "\"";
+						}
+					}
+					if (reason == null) {
+						request.listener().getLogger().format("%n  Pull request #%d matches all the attributes. Includes this pull request.%n",
+								pullRequest.getNumber());
+					} else {
+						request.listener().getLogger().format("%n  Pull request #%d is excluded: %s. Skipped.%n",
+								pullRequest.getNumber(), reason);
+					}
+					return Decision.of(labelCount, reason);
+				});
+			}
+		};
+	}
+
+	/**
+	 * Checks the attributes listed with a pull request, which costs no API call.
+	 *
+	 * @return why the pull request is excluded or {@code null} if it is not
+	 */
+	@CheckForNull
+	String getExclusionReason(@NonNull GitHubSCMSourceRequest request, @NonNull GHPullRequest pullRequest) throws IOException {
+		if (baseBranches != null) {
+			String base = pullRequest.getBase() == null ? null : pullRequest.getBase().getRef();
+			if (base == null || getBaseBranchPatterns().stream().noneMatch(pattern -> pattern.matcher(base).matches())) {
+				return "base branch " + base + " is not one of " + baseBranches;
+			}
+		}
+		if (authors != null) {
+			GHUser user = pullRequest.getUser();
+			String login = user == null ? null : user.getLogin();
+			if (login == null || !split(authors).contains(login.toLowerCase(Locale.ENGLISH))) {
+				return "author " + login + " is not one of " + authors;
+			}
+		}
+		if (excludeDrafts) {
+			Object draft = invoke(IS_DRAFT, pullRequest, request, "draft state");
+			if (Boolean.TRUE.equals(draft)) {
+				return "it is a draft";
+			}
+		}
+		if (authorAssociations != null) {
+			Object association = invoke(GET_AUTHOR_ASSOCIATION, pullRequest, request, "author association");
+			if (association != null && !split(authorAssociations).contains(association.toString().toLowerCase(Locale.ENGLISH))) {
+				return "author association " + association + " is not one of " + authorAssociations;
+			}
+		}
+		if (maxAgeDays > 0) {
+			Date createdAt = pullRequest.getCreatedAt();
+			if (createdAt != null && System.currentTimeMillis() - createdAt.getTime() > TimeUnit.DAYS.toMillis(maxAgeDays)) {
+				return "age is more than " + maxAgeDays + " days";
+			}
+		}
+		return null;
+	}
+
+	private List<Pattern> getBaseBranchPatterns() {
+		List<Pattern> patterns = baseBranchPatterns;
+		if (patterns == null) {
+			patterns = new ArrayList<>();
+			for (String branch : StringUtils.split(StringUtils.defaultString(baseBranches), ',')) {
+				if (StringUtils.isNotBlank(branch)) {
+					patterns.add(Pattern.compile(branch.trim()));
+				}
+			}
+			baseBranchPatterns = patterns;
+		}
+		return patterns;
+	}
+
+	private static List<String> split(String values) {
+		List<String> split = new ArrayList<>();
+		for (String value : StringUtils.split(values, ',')) {
+			if (StringUtils.isNotBlank(value)) {
+				split.add(value.trim().toLowerCase(Locale.ENGLISH));
+			}
+		}
+		return split;
+	}
+
+	/**
+	 * Reads an attribute that only newer versions of the GitHub API expose.
+	 *
+	 * @return the attribute or {@code null} if not available
+	 */
+	@CheckForNull
+	private static Object invoke(@CheckForNull Method method, GHPullRequest pullRequest, GitHubSCMSourceRequest request,
+								 String attribute) throws IOException {
+		if (method == null) {
+			request.listener().getLogger().format("%n  The installed GitHub API does not expose the %s of pull requests, "
+					+ "it is not filtered on.%n", attribute);
+			return null;
+		}
+		try {
+			return method.invoke(pullRequest);
+		} catch (IllegalAccessException e) {
+			return null;
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	@CheckForNull
+	private static Method findMethod(String name) {
+		try {
+			return GHPullRequest.class.getMethod(name);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	@Extension
+	@Discovery
+	public static class DescriptorImpl extends BaseDescriptorImpl {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getDisplayName() {
+			return "Filter pull requests by labels, draft state, base branch, author and age";
+		}
+
+		/**
+		 * Labels are optional as the other attributes may be enough.
+		 */
+		@Override
+		@Restricted(NoExternalUse.class)
+		public FormValidation doCheckLabels(@QueryParameter String labels) {
+			return FormValidation.ok();
+		}
+
+		@Restricted(NoExternalUse.class)
+		public FormValidation doCheckBaseBranches(@QueryParameter String baseBranches) {
+			for (String branch : StringUtils.split(StringUtils.defaultString(baseBranches), ',')) {
+				try {
+					Pattern.compile(branch.trim());
+				} catch (PatternSyntaxException e) {
+					return FormValidation.error("Invalid regular expression " + branch.trim() + ": " + e.getDescription());
+				}
+			}
+			return FormValidation.ok();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected BaseGithubExtendedFilterTrait createTrait(String labels, String labelsRule) {
+			PullRequestAttributesFilterTrait trait = new PullRequestAttributesFilterTrait(labels);
+			if (StringUtils.isNotBlank(labelsRule)) {
+				trait.setLabelsRule(LabelsBranchBuildStrategy.Rule.valueOf(labelsRule));
+			}
+			return trait;
+		}
+	}
+}
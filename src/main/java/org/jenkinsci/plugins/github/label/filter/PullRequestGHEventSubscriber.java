@@ -1,35 +1,44 @@
 package org.jenkinsci.plugins.github.label.filter;
 
+import com.cloudbees.hudson.plugins.folder.computed.ComputedFolder;
 import com.cloudbees.jenkins.GitHubRepositoryName;
 import hudson.Extension;
-import hudson.model.Cause;
 import hudson.model.Item;
 import hudson.security.ACL;
+import hudson.security.ACLContext;
 import jenkins.scm.api.SCMSource;
 import jenkins.scm.api.SCMSourceOwner;
 import jenkins.scm.api.SCMSourceOwners;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
 import org.jenkinsci.plugins.github.extension.GHEventsSubscriber;
 import org.jenkinsci.plugins.github.extension.GHSubscriberEvent;
 import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
 import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
 import org.kohsuke.github.GHEvent;
-import org.kohsuke.github.GHEventPayload;
-import org.kohsuke.github.GitHub;
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.io.StringReader;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import static com.google.common.collect.Sets.immutableEnumSet;
+import static org.kohsuke.github.GHEvent.LABEL;
 import static org.kohsuke.github.GHEvent.PULL_REQUEST;
 
 @Extension
@@ -37,6 +46,38 @@ public class PullRequestGHEventSubscriber extends GHEventsSubscriber {
 	private static final Logger LOGGER = Logger.getLogger(PullRequestGHEventSubscriber.class.getName());
 	private static final Pattern REPOSITORY_NAME_PATTERN = Pattern.compile("https?://([^/]+)/([^/]+)/([^/]+)");
 
+	private final IndexingDispatcher dispatcher;
+
+	private final DeliveryDeduplicator deduplicator;
+
+	private final ExcludedBuildsAborter aborter;
+
+	private final LabelEventLanes lanes;
+
+	public PullRequestGHEventSubscriber() {
+		this(new IndexingDispatcher());
+	}
+
+	PullRequestGHEventSubscriber(IndexingDispatcher dispatcher) {
+		this(dispatcher, new DeliveryDeduplicator());
+	}
+
+	PullRequestGHEventSubscriber(IndexingDispatcher dispatcher, DeliveryDeduplicator deduplicator) {
+		this(dispatcher, deduplicator, new ExcludedBuildsAborter());
+	}
+
+	PullRequestGHEventSubscriber(IndexingDispatcher dispatcher, DeliveryDeduplicator deduplicator, ExcludedBuildsAborter aborter) {
+		this(dispatcher, deduplicator, aborter, new LabelEventLanes());
+	}
+
+	PullRequestGHEventSubscriber(IndexingDispatcher dispatcher, DeliveryDeduplicator deduplicator, ExcludedBuildsAborter aborter,
+								 LabelEventLanes lanes) {
+		this.dispatcher = dispatcher;
+		this.deduplicator = deduplicator;
+		this.aborter = aborter;
+		this.lanes = lanes;
+	}
+
 	@Override
 	protected boolean isApplicable(@Nullable Item project) {
 		if (project != null) {
@@ -54,51 +95,430 @@ public class PullRequestGHEventSubscriber extends GHEventsSubscriber {
 
 	@Override
 	protected Set<GHEvent> events() {
-		return immutableEnumSet(PULL_REQUEST);
+		return immutableEnumSet(PULL_REQUEST, LABEL);
 	}
 
 	@Override
 	protected void onEvent(GHSubscriberEvent event) {
-		try {
-			final GHEventPayload.PullRequest p = GitHub.offline()
-					.parseEventPayload(new StringReader(event.getPayload()), GHEventPayload.PullRequest.class);
-			String action = p.getAction();
-			String repoUrl = p.getRepository().getHtmlUrl().toExternalForm();
-			LOGGER.log(Level.FINE, "Received {0} for {1} from {2}",
-					new Object[]{event.getGHEvent(), repoUrl, event.getOrigin()}
-			);
-			Matcher matcher = REPOSITORY_NAME_PATTERN.matcher(repoUrl);
-			if (matcher.matches()) {
-				final GitHubRepositoryName changedRepository = GitHubRepositoryName.create(repoUrl);
-				Optional.ofNullable(changedRepository)
-						.ifPresent(safeRepo -> {
-							if ("labeled".equals(action) || "unlabeled".equals(action)) {
-								triggerScan(safeRepo);
-							}
-						});
-			} else {
-				LOGGER.log(Level.WARNING, "Malformed repository URL {0}", repoUrl);
-				return;
+		FlightRecorderEvents.WebhookTimings timings = FlightRecorderEvents.startWebhook();
+		try (Tracing.Span span = Tracing.startTrace("webhook").setAttribute("github.event", event.getGHEvent())) {
+			handle(event);
+		} finally {
+			FlightRecorderEvents.endWebhook(timings, event.getGHEvent());
+		}
+	}
 
-			}
-		} catch (IOException e) {
+	private void handle(GHSubscriberEvent event) {
+		String deliveryId = getDeliveryId();
+		Tracing.current().setAttribute("github.delivery", deliveryId);
+		if (deduplicator.isDuplicate(DeliveryDeduplicator.fingerprint(deliveryId, event.getPayload()))) {
+			LOGGER.log(Level.FINE, "Ignoring duplicate delivery {0} of {1} event from {2}",
+					new Object[]{deliveryId, event.getGHEvent(), event.getOrigin()});
+			return;
+		}
+		if (event.getGHEvent() == LABEL) {
+			onLabelEvent(event);
+			return;
+		}
+		JSONObject payload;
+		try (Tracing.Span span = Tracing.start("parse")) {
+			payload = JSONObject.fromObject(event.getPayload());
+		} catch (JSONException e) {
 			LogRecord lr = new LogRecord(Level.WARNING, "Could not parse {0} event from {1} with payload: {2}");
 			lr.setParameters(new Object[]{event.getGHEvent(), event.getOrigin(), event.getPayload()});
 			lr.setThrown(e);
 			LOGGER.log(lr);
+			return;
+		}
+		String action = payload.optString("action");
+		int number = payload.optInt("number");
+		JSONObject pullRequest = payload.optJSONObject("pull_request");
+		JSONObject repository = payload.optJSONObject("repository");
+		if (pullRequest == null || repository == null || !repository.has("html_url")) {
+			LOGGER.log(Level.WARNING, "Malformed {0} event from {1}", new Object[]{event.getGHEvent(), event.getOrigin()});
+			return;
+		}
+		String repoUrl = repository.getString("html_url");
+		Tracing.current()
+				.setAttribute("github.action", action)
+				.setAttribute(Tracing.REPOSITORY, repoUrl)
+				.setAttribute(Tracing.PULL_REQUEST, number);
+		FlightRecorderEvents.WebhookTimings timings = FlightRecorderEvents.currentWebhook();
+		if (timings != null) {
+			timings.parsed(action, repoUrl);
+		}
+		LOGGER.log(Level.FINE, "Received {0} for {1} from {2}",
+				new Object[]{event.getGHEvent(), repoUrl, event.getOrigin()}
+		);
+		Matcher matcher = REPOSITORY_NAME_PATTERN.matcher(repoUrl);
+		if (matcher.matches()) {
+			final GitHubRepositoryName changedRepository = GitHubRepositoryName.create(repoUrl);
+			// the payload only triggers a scan, which reads the labels from GitHub, so they are never stored
+			if (changedRepository != null && ("labeled".equals(action) || "unlabeled".equals(action))) {
+				List<String> labels = getLabels(pullRequest);
+				PullRequestKey key = PullRequestKey.of(pullRequest.optString("html_url"));
+				LabelSet previousLabels = key == null ? null : LabelStore.get().getIfPresent(key);
+				triggerScan(changedRepository, number, previousLabels, labels);
+			}
+		} else {
+			LOGGER.log(Level.WARNING, "Malformed repository URL {0}", repoUrl);
+		}
+	}
+
+	/**
+	 * Handles the rename or deletion of a label of a repository, which changes the labels of its pull requests
+	 * without any {@code pull_request} event.
+	 */
+	private void onLabelEvent(GHSubscriberEvent event) {
+		JSONObject payload;
+		try (Tracing.Span span = Tracing.start("parse")) {
+			payload = JSONObject.fromObject(event.getPayload());
+		} catch (JSONException e) {
+			LOGGER.log(Level.WARNING, "Could not parse " + event.getGHEvent() + " event from " + event.getOrigin(), e);
+			return;
+		}
+		String action = payload.optString("action");
+		JSONObject label = payload.optJSONObject("label");
+		JSONObject repository = payload.optJSONObject("repository");
+		if (label == null || !label.has("name") || repository == null || !repository.has("html_url")) {
+			LOGGER.log(Level.WARNING, "Malformed {0} event from {1}", new Object[]{event.getGHEvent(), event.getOrigin()});
+			return;
+		}
+		String name;
+		String newName;
+		if ("deleted".equals(action)) {
+			name = label.getString("name");
+			newName = null;
+		} else if ("edited".equals(action)) {
+			JSONObject changes = payload.optJSONObject("changes");
+			JSONObject nameChange = changes == null ? null : changes.optJSONObject("name");
+			if (nameChange == null || !nameChange.has("from")) {
+				return;
+			}
+			name = nameChange.getString("from");
+			newName = label.getString("name");
+		} else {
+			return;
+		}
+		FlightRecorderEvents.WebhookTimings timings = FlightRecorderEvents.currentWebhook();
+		if (timings != null) {
+			timings.parsed(action, repository.getString("html_url"));
 		}
+		Tracing.current()
+				.setAttribute("github.action", action)
+				.setAttribute(Tracing.REPOSITORY, repository.getString("html_url"))
+				.setAttribute("github.label", name);
+		GitHubRepositoryName changedRepository = GitHubRepositoryName.create(repository.getString("html_url"));
+		if (changedRepository == null) {
+			LOGGER.log(Level.WARNING, "Malformed repository URL {0}", repository.getString("html_url"));
+			return;
+		}
+		SortedSet<Integer> pullRequests = LabelStore.get().invalidateLabel(changedRepository.getHost(),
+				changedRepository.getUserName(), changedRepository.getRepositoryName(), name);
+		LOGGER.log(Level.FINE, "Label {0} of {1}/{2} {3}, forgot the labels of pull requests {4}",
+				new Object[]{name, changedRepository.getUserName(), changedRepository.getRepositoryName(),
+						newName == null ? "deleted" : "renamed to " + newName, pullRequests});
+		ACL.impersonate(ACL.SYSTEM, () ->
+				processLabelChange(changedRepository, SCMSourceOwners.all(), name, newName, pullRequests));
 	}
 
-	private void triggerScan(GitHubRepositoryName changedRepository) {
-		ACL.impersonate(ACL.SYSTEM, () -> {
-			Iterable<SCMSourceOwner> scmSourceOwners = SCMSourceOwners.all();
-			process(changedRepository, scmSourceOwners);
+	/**
+	 * Schedules, in one batch, the indexing of the projects whose labels filters refer to a renamed or deleted label.
+	 *
+	 * @param changedRepository the repository of the label
+	 * @param scmSourceOwners   the candidate projects
+	 * @param name              the label name
+	 * @param newName           the new label name or {@code null} if the label was deleted
+	 * @param pullRequests      the numbers of the pull requests known to have the label
+	 */
+	void processLabelChange(GitHubRepositoryName changedRepository, Iterable<SCMSourceOwner> scmSourceOwners,
+							String name, @Nullable String newName, Set<Integer> pullRequests) {
+		FlightRecorderEvents.WebhookTimings timings = FlightRecorderEvents.currentWebhook();
+		List<WorkflowMultiBranchProject> projects;
+		try (Tracing.Span span = startSpan("route", changedRepository, pullRequests)) {
+			projects = getProjects(changedRepository, scmSourceOwners).stream()
+					.filter(project -> project.getSCMSources().stream()
+							.filter(source -> source instanceof GitHubSCMSource)
+							.map(source -> (GitHubSCMSource) source)
+							.filter(isRepoMatch(changedRepository))
+							.flatMap(source -> source.getTraits().stream())
+							.filter(trait -> trait instanceof LabelsFilter)
+							.map(trait -> (LabelsFilter) trait)
+							.anyMatch(filter -> filter.refersTo(name) || newName != null && filter.refersTo(newName)))
+					.collect(Collectors.toList());
+			span.setAttribute("projects", projects.size());
+		}
+		if (timings != null) {
+			timings.routed(projects.size());
+		}
+		if (projects.isEmpty()) {
+			return;
+		}
+		List<ComputedFolder<?>> scheduled = dispatch(changedRepository, projects, pullRequests);
+		if (timings != null) {
+			timings.dispatched(scheduled.size());
+		}
+		LOGGER.log(Level.FINE, "Label {0} changed, scheduled {1} of {2} projects",
+				new Object[]{name, scheduled.size(), projects.size()});
+	}
+
+	/**
+	 * Gets the delivery identifier of the webhook being processed.
+	 *
+	 * @return the identifier or {@code null} if unknown
+	 */
+	@Nullable
+	String getDeliveryId() {
+		StaplerRequest request = Stapler.getCurrentRequest();
+		return request == null ? null : request.getHeader(DeliveryDeduplicator.DELIVERY_HEADER);
+	}
+
+	/**
+	 * Gets the number of webhook deliveries ignored as duplicates.
+	 *
+	 * @return the number of duplicates
+	 */
+	public long getDuplicateDeliveries() {
+		return deduplicator.getDuplicates();
+	}
+
+	/**
+	 * Gets the number of webhook deliveries processed.
+	 *
+	 * @return the number of deliveries
+	 */
+	public long getAcceptedDeliveries() {
+		return deduplicator.getAccepted();
+	}
+
+	/**
+	 * Gets the label names embedded in the pull request of a payload, without calling the GitHub API.
+	 */
+	private static List<String> getLabels(JSONObject pullRequest) {
+		JSONArray labels = pullRequest.optJSONArray("labels");
+		if (labels == null) {
+			return Collections.emptyList();
+		}
+		List<String> names = new ArrayList<>(labels.size());
+		for (int i = 0; i < labels.size(); i++) {
+			JSONObject label = labels.optJSONObject(i);
+			if (label != null && label.has("name")) {
+				names.add(label.getString("name"));
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Tells whether a labels filter of a source excludes labels.
+	 *
+	 * @param source the source
+	 * @param labels the label names
+	 * @return {@code true} if excluded
+	 */
+	static boolean isExcludedBy(GitHubSCMSource source, Collection<String> labels) {
+		return source.getTraits().stream()
+				.filter(trait -> trait instanceof LabelsFilter)
+				.anyMatch(trait -> ((LabelsFilter) trait).isExcludedBy(labels));
+	}
+
+	/**
+	 * Aborts the builds of the pull request in the projects which now exclude it, when its previous labels are known,
+	 * then schedules the indexing of the projects in the lane of the {@link LabelEventLanes.Effect effect} of the event.
+	 * Both run on the threads of the lanes, which end the timings of the webhook, unless the lanes drop the event.
+	 */
+	private void triggerScan(GitHubRepositoryName changedRepository, int pullRequestNumber,
+							 @Nullable Collection<String> previousLabels, List<String> labels) {
+		FlightRecorderEvents.WebhookTimings timings = FlightRecorderEvents.handOffWebhook();
+		PullRequestKey key = new PullRequestKey(changedRepository.getHost(), changedRepository.getUserName(),
+				changedRepository.getRepositoryName(), pullRequestNumber);
+		boolean accepted = lanes.submit(key, () -> {
+			try (ACLContext context = ACL.as(ACL.SYSTEM)) {
+				Iterable<SCMSourceOwner> scmSourceOwners = SCMSourceOwners.all();
+				if (previousLabels != null) {
+					abortExcludedBuilds(changedRepository, scmSourceOwners, pullRequestNumber, previousLabels, labels);
+				}
+				return classify(changedRepository, scmSourceOwners, previousLabels, labels);
+			}
+		}, () -> {
+			try {
+				ACL.impersonate(ACL.SYSTEM, () -> process(changedRepository, SCMSourceOwners.all(),
+						Collections.singleton(pullRequestNumber), timings));
+			} finally {
+				FlightRecorderEvents.endHandedOffWebhook(timings, PULL_REQUEST);
+			}
 		});
+		if (!accepted) {
+			FlightRecorderEvents.endHandedOffWebhook(timings, PULL_REQUEST);
+		}
 	}
 
+	/**
+	 * Classifies a label event by its most urgent effect on the labels filters of the projects of a repository.
+	 *
+	 * @param changedRepository the repository
+	 * @param scmSourceOwners   the candidate projects
+	 * @param previousLabels    the labels before the event or {@code null} if unknown
+	 * @param labels            the labels of the event
+	 * @return the effect
+	 */
+	LabelEventLanes.Effect classify(GitHubRepositoryName changedRepository, Iterable<SCMSourceOwner> scmSourceOwners,
+									@Nullable Collection<String> previousLabels, Collection<String> labels) {
+		LabelEventLanes.Effect effect = LabelEventLanes.Effect.UNCHANGED;
+		for (WorkflowMultiBranchProject project : getProjects(changedRepository, scmSourceOwners)) {
+			LabelEventLanes.Effect projectEffect = getEffect(project, changedRepository, previousLabels, labels);
+			if (projectEffect.compareTo(effect) < 0) {
+				effect = projectEffect;
+			}
+		}
+		return effect;
+	}
+
+	/**
+	 * Aborts the builds of a pull request that the labels filters of a project just excluded,
+	 * for the projects whose trigger {@link LabeledFilterWebHookTrigger#isAbortExcludedBuilds() opts in}.
+	 * A pull request whose previous labels were already excluded is left alone, as its builds were started
+	 * on purpose. As the labels of the event come from an unauthenticated payload, builds are only aborted
+	 * if the labels read again from the GitHub API exclude the pull request too.
+	 *
+	 * @param changedRepository the repository
+	 * @param scmSourceOwners   the candidate projects
+	 * @param pullRequestNumber the pull request number
+	 * @param previousLabels    the labels before the event
+	 * @param labels            the labels of the event
+	 */
+	void abortExcludedBuilds(GitHubRepositoryName changedRepository, Iterable<SCMSourceOwner> scmSourceOwners,
+							 int pullRequestNumber, Collection<String> previousLabels, Collection<String> labels) {
+		for (WorkflowMultiBranchProject project : getProjects(changedRepository, scmSourceOwners)) {
+			LabeledFilterWebHookTrigger trigger = LabeledFilterWebHookTrigger.of(project);
+			if (trigger != null && trigger.isAbortExcludedBuilds()
+					&& getEffect(project, changedRepository, previousLabels, labels) == LabelEventLanes.Effect.EXCLUDED) {
+				try (Tracing.Span span = Tracing.start("abort").setAttribute(Tracing.PROJECT, project.getFullName())) {
+					Collection<String> currentLabels = readExcludingLabels(project, changedRepository, pullRequestNumber);
+					span.setAttribute("builds", currentLabels == null ? 0 : aborter.abort(project, pullRequestNumber, currentLabels));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the labels of a pull request from the GitHub API, if they exclude it from a project.
+	 *
+	 * @return the labels or {@code null} if they do not exclude the pull request, or could not be read
+	 */
+	@Nullable
+	private Collection<String> readExcludingLabels(WorkflowMultiBranchProject project, GitHubRepositoryName changedRepository,
+												   int pullRequestNumber) {
+		for (GitHubSCMSource source : getSources(project, changedRepository)) {
+			if (!hasLabelsFilterTraits(source)) {
+				continue;
+			}
+			Collection<String> labels;
+			try {
+				labels = aborter.readLabels(source, pullRequestNumber);
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "Not aborting the builds of pull request #{0} of {1}, its labels could not be read: {2}",
+						new Object[]{pullRequestNumber, project.getFullName(), e.getMessage()});
+				return null;
+			}
+			if (labels != null && isExcludedBy(source, labels)) {
+				return labels;
+			}
+		}
+		LOGGER.log(Level.FINE, "Not aborting the builds of pull request #{0} of {1}, its current labels do not exclude it",
+				new Object[]{pullRequestNumber, project.getFullName()});
+		return null;
+	}
+
+	/**
+	 * Gets the effect of a label change on the labels filters of a project.
+	 * A pull request whose previous labels are unknown is considered newly included or excluded.
+	 */
+	private LabelEventLanes.Effect getEffect(WorkflowMultiBranchProject project, GitHubRepositoryName changedRepository,
+											 @Nullable Collection<String> previousLabels, Collection<String> labels) {
+		List<GitHubSCMSource> sources = getSources(project, changedRepository);
+		boolean excluded = sources.stream().anyMatch(source -> isExcludedBy(source, labels));
+		if (previousLabels != null && excluded == sources.stream().anyMatch(source -> isExcludedBy(source, previousLabels))) {
+			return LabelEventLanes.Effect.UNCHANGED;
+		}
+		return excluded ? LabelEventLanes.Effect.EXCLUDED : LabelEventLanes.Effect.INCLUDED;
+	}
+
+	private List<GitHubSCMSource> getSources(WorkflowMultiBranchProject project, GitHubRepositoryName changedRepository) {
+		return project.getSCMSources().stream()
+				.filter(source -> source instanceof GitHubSCMSource)
+				.map(source -> (GitHubSCMSource) source)
+				.filter(isRepoMatch(changedRepository))
+				.collect(Collectors.toList());
+	}
+
+	void process(GitHubRepositoryName changedRepository, Iterable<SCMSourceOwner> scmSourceOwners, Set<Integer> pullRequests) {
+		process(changedRepository, scmSourceOwners, pullRequests, null);
+	}
+
+	/**
+	 * Schedules the indexing of the projects of a repository with a labels filter.
+	 *
+	 * @param changedRepository the repository
+	 * @param scmSourceOwners   the candidate projects
+	 * @param pullRequests      the numbers of the changed pull requests
+	 * @param timings           the timings of the webhook or {@code null} if not recorded
+	 */
+	void process(GitHubRepositoryName changedRepository, Iterable<SCMSourceOwner> scmSourceOwners, Set<Integer> pullRequests,
+				 @Nullable FlightRecorderEvents.WebhookTimings timings) {
+		List<WorkflowMultiBranchProject> projects;
+		try (Tracing.Span span = startSpan("route", changedRepository, pullRequests)) {
+			projects = getProjects(changedRepository, scmSourceOwners);
+			span.setAttribute("projects", projects.size());
+		}
+		if (timings != null) {
+			timings.routed(projects.size());
+		}
+		if (projects.isEmpty()) {
+			return;
+		}
+		List<ComputedFolder<?>> scheduled = dispatch(changedRepository, projects, pullRequests);
+		if (timings != null) {
+			timings.dispatched(scheduled.size());
+		}
+		LOGGER.log(Level.FINE,
+				"Repo {0}:{1}/{2} has labels filter and scheduled {3} of {4} projects",
+				new Object[]{
+						changedRepository.getHost(),
+						changedRepository.getUserName(),
+						changedRepository.getRepositoryName(),
+						scheduled.size(),
+						projects.size()
+				}
+		);
+	}
+
+	/**
+	 * Schedules the indexing of projects in a span.
+	 */
+	private List<ComputedFolder<?>> dispatch(GitHubRepositoryName changedRepository,
+											 List<WorkflowMultiBranchProject> projects, Set<Integer> pullRequests) {
+		try (Tracing.Span span = startSpan("dispatch", changedRepository, pullRequests)) {
+			List<ComputedFolder<?>> scheduled = dispatcher.dispatch(projects, pullRequests);
+			span.setAttribute("scheduled", scheduled.size());
+			return scheduled;
+		}
+	}
+
+	private static Tracing.Span startSpan(String name, GitHubRepositoryName repository, Set<Integer> pullRequests) {
+		Tracing.Span span = Tracing.start(name);
+		if (span.isRecording()) {
+			span.setAttribute(Tracing.REPOSITORY, repository.getHost() + "/" + repository.getUserName() + "/" + repository.getRepositoryName())
+					.setAttribute(Tracing.PULL_REQUESTS, pullRequests);
+		}
+		return span;
+	}
 
-	void process(GitHubRepositoryName changedRepository, Iterable<SCMSourceOwner> scmSourceOwners) {
-		StreamSupport.stream(scmSourceOwners.spliterator(), false)
+	/**
+	 * Gets the projects with the labels filter trigger and a labels filter on a source of a repository.
+	 */
+	private List<WorkflowMultiBranchProject> getProjects(GitHubRepositoryName changedRepository, Iterable<SCMSourceOwner> scmSourceOwners) {
+		return StreamSupport.stream(scmSourceOwners.spliterator(), false)
 				.filter(owner -> owner instanceof WorkflowMultiBranchProject)
 				.map(owner -> (WorkflowMultiBranchProject) owner)
 				.filter(this::hasLabelsFilterTrigger)
@@ -111,31 +531,11 @@ public class PullRequestGHEventSubscriber extends GHEventsSubscriber {
 								.findFirst()
 								.isPresent()
 				)
-				.forEach(
-						owner -> {
-							owner.scheduleBuild(new Cause() {
-								@Override
-								public String getShortDescription() {
-									return "Triggered by labels change";
-								}
-							});
-							LOGGER.log(Level.FINE,
-									"Repo {1}:{2}/{3} has labels filter and schedule build",
-									new Object[]{
-											changedRepository.getHost(),
-											changedRepository.getUserName(),
-											changedRepository.getRepositoryName()
-									}
-							);
-						}
-				);
+				.collect(Collectors.toList());
 	}
 
 	private boolean hasLabelsFilterTrigger(WorkflowMultiBranchProject project) {
-		return project.getTriggers().values().stream()
-				.filter(trigger -> trigger instanceof LabeledFilterWebHookTrigger)
-				.findFirst()
-				.isPresent();
+		return LabeledFilterWebHookTrigger.of(project) != null;
 	}
 
 	private Predicate<GitHubSCMSource> isRepoMatch(GitHubRepositoryName changedRepository) {
@@ -0,0 +1,167 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.kohsuke.github.GHPullRequest;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies a pull request across the controller by host, owner, repository and number.
+ * Owner and repository names are case insensitive on GitHub, so they are compared in lower case.
+ */
+final class PullRequestKey {
+
+	static final String GITHUB_HOST = "github.com";
+
+	private static final Pattern PULL_REQUEST_PATH = Pattern.compile("/([^/]+)/([^/]+)/pull/(\\d+)/?");
+
+	private final String host;
+
+	private final String owner;
+
+	private final String repository;
+
+	private final int number;
+
+	PullRequestKey(@NonNull String host, @NonNull String owner, @NonNull String repository, int number) {
+		this.host = host.toLowerCase(Locale.ENGLISH);
+		this.owner = owner.toLowerCase(Locale.ENGLISH);
+		this.repository = repository.toLowerCase(Locale.ENGLISH);
+		this.number = number;
+	}
+
+	/**
+	 * Gets the key of a pull request from its web URL.
+	 *
+	 * @param ghPullRequest the pull request
+	 * @return the key or {@code null} if the URL is not a pull request URL
+	 */
+	@CheckForNull
+	static PullRequestKey of(@NonNull GHPullRequest ghPullRequest) {
+		URL htmlUrl = ghPullRequest.getHtmlUrl();
+		return htmlUrl == null ? null : of(htmlUrl);
+	}
+
+	/**
+	 * Gets the key of a pull request from its web URL, as found in webhook payloads.
+	 *
+	 * @param htmlUrl the web URL
+	 * @return the key or {@code null} if the URL is not a pull request URL
+	 */
+	@CheckForNull
+	static PullRequestKey of(@CheckForNull String htmlUrl) {
+		if (htmlUrl == null || htmlUrl.isEmpty()) {
+			return null;
+		}
+		try {
+			return of(new URL(htmlUrl));
+		} catch (MalformedURLException e) {
+			return null;
+		}
+	}
+
+	@CheckForNull
+	private static PullRequestKey of(@NonNull URL htmlUrl) {
+		Matcher matcher = PULL_REQUEST_PATH.matcher(htmlUrl.getPath());
+		if (!matcher.matches()) {
+			return null;
+		}
+		return new PullRequestKey(htmlUrl.getHost(), matcher.group(1), matcher.group(2), Integer.parseInt(matcher.group(3)));
+	}
+
+	/**
+	 * Gets the key of a pull request of a source.
+	 *
+	 * @param source the source
+	 * @param number the pull request number
+	 * @return the key
+	 */
+	@NonNull
+	static PullRequestKey of(@NonNull GitHubSCMSource source, int number) {
+		return new PullRequestKey(hostOf(source.getApiUri()), source.getRepoOwner(), source.getRepository(), number);
+	}
+
+	/**
+	 * Gets the web host of a GitHub API endpoint, which is the host webhooks and pull request URLs refer to.
+	 *
+	 * @param apiUri the API URI or {@code null} for GitHub.com
+	 * @return the host
+	 */
+	@NonNull
+	static String hostOf(@CheckForNull String apiUri) {
+		if (apiUri == null || apiUri.trim().isEmpty()) {
+			return GITHUB_HOST;
+		}
+		try {
+			String host = new URL(apiUri).getHost();
+			return "api.github.com".equalsIgnoreCase(host) ? GITHUB_HOST : host;
+		} catch (MalformedURLException e) {
+			return apiUri;
+		}
+	}
+
+	@NonNull
+	String getHost() {
+		return host;
+	}
+
+	@NonNull
+	String getOwner() {
+		return owner;
+	}
+
+	@NonNull
+	String getRepository() {
+		return repository;
+	}
+
+	int getNumber() {
+		return number;
+	}
+
+	/**
+	 * Checks whether this pull request belongs to a repository.
+	 *
+	 * @param host       the host
+	 * @param owner      the repository owner
+	 * @param repository the repository name
+	 * @return {@code true} if the pull request belongs to the repository
+	 */
+	boolean isIn(@NonNull String host, @NonNull String owner, @NonNull String repository) {
+		return this.host.equalsIgnoreCase(host)
+				&& this.owner.equalsIgnoreCase(owner)
+				&& this.repository.equalsIgnoreCase(repository);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof PullRequestKey)) {
+			return false;
+		}
+		PullRequestKey that = (PullRequestKey) o;
+		return number == that.number
+				&& host.equals(that.host)
+				&& owner.equals(that.owner)
+				&& repository.equals(that.repository);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(host, owner, repository, number);
+	}
+
+	@Override
+	public String toString() {
+		return host + "/" + owner + "/" + repository + "#" + number;
+	}
+}
@@ -34,7 +34,7 @@ import org.jenkinsci.plugins.github_branch_source.GitHubSCMSourceRequest;
 import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
 import org.kohsuke.stapler.DataBoundConstructor;
 
-import java.util.List;
+import java.util.Collection;
 
 /**
  * A {@link Discovery} trait for GitHub that will blacklist pull requests matching any specified label.
@@ -51,36 +51,46 @@ public class PullRequestLabelsBlackListFilterTrait extends BaseGithubExtendedFil
 		super(labels);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isExcludedBy(@NonNull Collection<String> labels) {
+		return getConfiguration().isExcludedBy(LabelsBranchBuildStrategy.Rule.BLACKLIST, labels);
+	}
+
 	protected SCMHeadFilter getScmHeadFilter() {
 		SCMHeadFilter scmHeadFilter = new SCMHeadFilter() {
 
 			@Override
-			public boolean isExcluded(@NonNull SCMSourceRequest request, @NonNull SCMHead head) throws IOException {
+			public boolean isExcluded(@NonNull SCMSourceRequest request, @NonNull SCMHead head) throws IOException, InterruptedException {
 				if (request instanceof GitHubSCMSourceRequest && head instanceof PullRequestSCMHead) {
-					List<String> foundLabels = getPullRequestLabels((GitHubSCMSourceRequest) request, (PullRequestSCMHead) head);
-					List<String> blacklistLabels = getLabelsAsList();
-					if (blacklistLabels.isEmpty()) {
-						request.listener().getLogger().format("%n  No labels are defined in the trait. Includes this pull request.%n");
-						return false;
-					}
-					if (foundLabels.isEmpty()) {
-						request.listener().getLogger().format("%n  Has no labels. Includes this pull request.%n");
-						return false;
-					}
-					boolean containsAtLeastOne = foundLabels.stream()
-							.filter(blacklistLabels::contains)
-							.findFirst()
-							.isPresent();
-					if (containsAtLeastOne) {
-						request.listener().getLogger().format("%n  Contains at least one blacklist labels \"%s\". Skipped.%n", String.join(",", blacklistLabels));
-					} else {
-						request.listener().getLogger().format("%n  Doesn't contain any blacklist labels \"%s\". Includes this pull request.%n", String.join(",", blacklistLabels));
-					}
-					return containsAtLeastOne;
-
+					return decide((PullRequestSCMHead) head, () -> {
+						LabelSet foundLabels = getPullRequestLabels((GitHubSCMSourceRequest) request, (PullRequestSCMHead) head);
+						return Decision.of(foundLabels, isExcluded(request, foundLabels));
+					});
 				}
 				return false;
 			}
+
+			private boolean isExcluded(@NonNull SCMSourceRequest request, @NonNull LabelSet foundLabels) {
+				LabelsConfiguration blacklistLabels = getConfiguration();
+				if (blacklistLabels.isEmpty()) {
+					request.listener().getLogger().format("%n  No labels are defined in the trait. Includes this pull request.%n");
+					return false;
+				}
+				if (foundLabels.isEmpty()) {
+					request.listener().getLogger().format("%n  Has no labels. Includes this pull request.%n");
+					return false;
+				}
+				boolean containsAtLeastOne = blacklistLabels.matchesAny(foundLabels);
+				if (containsAtLeastOne) {
+					request.listener().getLogger().format("%n  Contains at least one blacklist labels \"%s\". Skipped.%n", blacklistLabels.getDisplayString());
+				} else {
+					request.listener().getLogger().format("%n  Doesn't contain any blacklist labels \"%s\". Includes this pull request.%n", blacklistLabels.getDisplayString());
+				}
+				return containsAtLeastOne;
+			}
 		};
 		return scmHeadFilter;
 	}
@@ -98,6 +108,14 @@ public class PullRequestLabelsBlackListFilterTrait extends BaseGithubExtendedFil
 			return "Exclude pull requests with any specified labels";
 		}
 
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected BaseGithubExtendedFilterTrait createTrait(String labels, String labelsRule) {
+			return new PullRequestLabelsBlackListFilterTrait(labels);
+		}
+
 	}
 
 }
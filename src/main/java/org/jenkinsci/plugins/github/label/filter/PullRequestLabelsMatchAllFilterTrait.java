@@ -34,7 +34,7 @@ import org.jenkinsci.plugins.github_branch_source.GitHubSCMSourceRequest;
 import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
 import org.kohsuke.stapler.DataBoundConstructor;
 
-import java.util.List;
+import java.util.Collection;
 
 /**
  * A {@link Discovery} trait for GitHub that will only select pull requests matching all specified label.
@@ -51,29 +51,42 @@ public class PullRequestLabelsMatchAllFilterTrait extends BaseGithubExtendedFilt
 		super(labels);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isExcludedBy(@NonNull Collection<String> labels) {
+		return getConfiguration().isExcludedBy(LabelsBranchBuildStrategy.Rule.MATCH_ALL, labels);
+	}
+
 	protected SCMHeadFilter getScmHeadFilter() {
 		SCMHeadFilter scmHeadFilter = new SCMHeadFilter() {
 
 			@Override
-			public boolean isExcluded(@NonNull SCMSourceRequest request, @NonNull SCMHead head) throws IOException {
+			public boolean isExcluded(@NonNull SCMSourceRequest request, @NonNull SCMHead head) throws IOException, InterruptedException {
 				if (request instanceof GitHubSCMSourceRequest && head instanceof PullRequestSCMHead) {
-					List<String> foundLabels = getPullRequestLabels((GitHubSCMSourceRequest) request, (PullRequestSCMHead) head);
-					List<String> requiredLabels = getLabelsAsList();
-					if (requiredLabels.isEmpty()) {
-						request.listener().getLogger().format("%n  No labels are defined in the trait. Includes this pull request.%n");
-						return false;
-					}
-					boolean containsAll = foundLabels.containsAll(requiredLabels);
-					if (containsAll) {
-						request.listener().getLogger().format("%n  Contains all required labels \"%s\". Includes this pull request..%n", String.join(",", requiredLabels));
-					} else {
-						request.listener().getLogger().format("%n  Doesn't contain all required labels \"%s\". Skipped %n", String.join(",", requiredLabels));
-					}
-					return !containsAll;
-
+					return decide((PullRequestSCMHead) head, () -> {
+						LabelSet foundLabels = getPullRequestLabels((GitHubSCMSourceRequest) request, (PullRequestSCMHead) head);
+						return Decision.of(foundLabels, isExcluded(request, foundLabels));
+					});
 				}
 				return false;
 			}
+
+			private boolean isExcluded(@NonNull SCMSourceRequest request, @NonNull LabelSet foundLabels) {
+				LabelsConfiguration requiredLabels = getConfiguration();
+				if (requiredLabels.isEmpty()) {
+					request.listener().getLogger().format("%n  No labels are defined in the trait. Includes this pull request.%n");
+					return false;
+				}
+				boolean containsAll = requiredLabels.isMatchedByAll(foundLabels);
+				if (containsAll) {
+					request.listener().getLogger().format("%n  Contains all required labels \"%s\". Includes this pull request..%n", requiredLabels.getDisplayString());
+				} else {
+					request.listener().getLogger().format("%n  Doesn't contain all required labels \"%s\". Skipped %n", requiredLabels.getDisplayString());
+				}
+				return !containsAll;
+			}
 		};
 		return scmHeadFilter;
 	}
@@ -91,6 +104,14 @@ public class PullRequestLabelsMatchAllFilterTrait extends BaseGithubExtendedFilt
 			return "Filter pull requests with all specified labels";
 		}
 
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected BaseGithubExtendedFilterTrait createTrait(String labels, String labelsRule) {
+			return new PullRequestLabelsMatchAllFilterTrait(labels);
+		}
+
 	}
 
 }
@@ -34,7 +34,7 @@ import org.jenkinsci.plugins.github_branch_source.GitHubSCMSourceRequest;
 import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
 import org.kohsuke.stapler.DataBoundConstructor;
 
-import java.util.List;
+import java.util.Collection;
 
 /**
  * A {@link Discovery} trait for GitHub that will only select pull requests matching all specified label.
@@ -51,32 +51,42 @@ public class PullRequestLabelsMatchAnyFilterTrait extends BaseGithubExtendedFilt
 		super(labels);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isExcludedBy(@NonNull Collection<String> labels) {
+		return getConfiguration().isExcludedBy(LabelsBranchBuildStrategy.Rule.MATCH_ANY, labels);
+	}
+
 	protected SCMHeadFilter getScmHeadFilter() {
 		SCMHeadFilter scmHeadFilter = new SCMHeadFilter() {
 
 			@Override
-			public boolean isExcluded(@NonNull SCMSourceRequest request, @NonNull SCMHead head) throws IOException {
+			public boolean isExcluded(@NonNull SCMSourceRequest request, @NonNull SCMHead head) throws IOException, InterruptedException {
 				if (request instanceof GitHubSCMSourceRequest && head instanceof PullRequestSCMHead) {
-					List<String> foundLabels = getPullRequestLabels((GitHubSCMSourceRequest) request, (PullRequestSCMHead) head);
-					List<String> specifiedLabels = getLabelsAsList();
-					if (specifiedLabels.isEmpty()) {
-						request.listener().getLogger().format("%n  No labels are defined in the trait. Includes this pull request.%n");
-						return false;
-					}
-					boolean containsAtLeastOne = foundLabels.stream()
-							.filter(specifiedLabels::contains)
-							.findFirst()
-							.isPresent();
-					if (containsAtLeastOne) {
-						request.listener().getLogger().format("%n  Contains at least one required labels \"%s\". Includes this pull request.%n", String.join(",", specifiedLabels));
-					} else {
-						request.listener().getLogger().format("%n  Doesn't contain any required labels \"%s\". Skipped.%n", String.join(",", specifiedLabels));
-					}
-					return !containsAtLeastOne;
-
+					return decide((PullRequestSCMHead) head, () -> {
+						LabelSet foundLabels = getPullRequestLabels((GitHubSCMSourceRequest) request, (PullRequestSCMHead) head);
+						return Decision.of(foundLabels, isExcluded(request, foundLabels));
+					});
 				}
 				return false;
 			}
+
+			private boolean isExcluded(@NonNull SCMSourceRequest request, @NonNull LabelSet foundLabels) {
+				LabelsConfiguration specifiedLabels = getConfiguration();
+				if (specifiedLabels.isEmpty()) {
+					request.listener().getLogger().format("%n  No labels are defined in the trait. Includes this pull request.%n");
+					return false;
+				}
+				boolean containsAtLeastOne = specifiedLabels.matchesAny(foundLabels);
+				if (containsAtLeastOne) {
+					request.listener().getLogger().format("%n  Contains at least one required labels \"%s\". Includes this pull request.%n", specifiedLabels.getDisplayString());
+				} else {
+					request.listener().getLogger().format("%n  Doesn't contain any required labels \"%s\". Skipped.%n", specifiedLabels.getDisplayString());
+				}
+				return !containsAtLeastOne;
+			}
 		};
 		return scmHeadFilter;
 	}
@@ -94,6 +104,14 @@ public class PullRequestLabelsMatchAnyFilterTrait extends BaseGithubExtendedFilt
 			return "Filter pull requests with any specified labels";
 		}
 
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected BaseGithubExtendedFilterTrait createTrait(String labels, String labelsRule) {
+			return new PullRequestLabelsMatchAnyFilterTrait(labels);
+		}
+
 	}
 
 }
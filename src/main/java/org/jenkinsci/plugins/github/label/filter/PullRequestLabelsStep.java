@@ -0,0 +1,161 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import com.google.common.collect.ImmutableSet;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMSource;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Returns the labels of the pull request being built, from the labels the traits stored in the {@link LabelStore}
+ * while indexing, so pipelines do not call the GitHub API again at build start.
+ * <p>
+ * Labels stored within {@link #getMaxAgeSeconds() maxAgeSeconds} are returned as is; the scans triggered
+ * by labeled and unlabeled webhooks keep them current. Older labels are read again from the pull request.
+ */
+public class PullRequestLabelsStep extends Step {
+
+	/**
+	 * The default age of labels which are returned without being refreshed.
+	 */
+	static final int DEFAULT_MAX_AGE_SECONDS = 300;
+
+	private int maxAgeSeconds = DEFAULT_MAX_AGE_SECONDS;
+
+	@DataBoundConstructor
+	public PullRequestLabelsStep() {
+	}
+
+	/**
+	 * Gets how old labels may be to be returned without being refreshed.
+	 *
+	 * @return the number of seconds
+	 */
+	public int getMaxAgeSeconds() {
+		return maxAgeSeconds;
+	}
+
+	@DataBoundSetter
+	public void setMaxAgeSeconds(int maxAgeSeconds) {
+		this.maxAgeSeconds = Math.max(0, maxAgeSeconds);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public StepExecution start(StepContext context) throws Exception {
+		return new Execution(context, maxAgeSeconds);
+	}
+
+	/**
+	 * Gets the labels of a pull request head.
+	 *
+	 * @param source        the source of the head or {@code null}
+	 * @param head          the head or {@code null}
+	 * @param maxAgeSeconds how old labels may be to be returned without being refreshed
+	 * @param logger        the logger of the build
+	 * @return the sorted label names, empty if the head is not a pull request of a GitHub source
+	 * @throws IOException          if the labels had to be refreshed and could not be
+	 * @throws InterruptedException if interrupted while waiting for the labels
+	 */
+	@NonNull
+	static List<String> getLabels(@CheckForNull SCMSource source, @CheckForNull SCMHead head, int maxAgeSeconds,
+								  @NonNull PrintStream logger) throws IOException, InterruptedException {
+		if (!(source instanceof GitHubSCMSource) || !(head instanceof PullRequestSCMHead)) {
+			logger.println("Not building a GitHub pull request, no labels");
+			return Collections.emptyList();
+		}
+		GitHubSCMSource gitHubSCMSource = (GitHubSCMSource) source;
+		PullRequestKey key = PullRequestKey.of(gitHubSCMSource, ((PullRequestSCMHead) head).getNumber());
+		LabelStore store = LabelStore.get();
+		LabelSet labels = store.getLastKnown(key, TimeUnit.SECONDS.toMillis(maxAgeSeconds));
+		if (labels == null) {
+			try {
+				GitHubLabelsClient client = GitHubLabelsClient.forSource(gitHubSCMSource);
+				labels = LabelsCircuitBreaker.forHost(key.getHost()).call(() -> LabelStoreWarmup.refresh(store, gitHubSCMSource, key, client));
+			} catch (IOException e) {
+				labels = store.getLastKnown(key, LabelsCircuitBreaker.getMaxStalenessMillis());
+				if (labels == null) {
+					throw e;
+				}
+				LabelsCircuitBreaker.degraded();
+				logger.println("[degraded] Could not refresh the labels of " + key + " (" + e.getMessage() + "), using the last known labels");
+			}
+		}
+		if (labels == null) {
+			logger.println("Pull request " + key + " is not open, no labels");
+			return Collections.emptyList();
+		}
+		List<String> names = new ArrayList<>(labels);
+		Collections.sort(names);
+		return names;
+	}
+
+	private static class Execution extends SynchronousNonBlockingStepExecution<List<String>> {
+		private static final long serialVersionUID = 1L;
+
+		private final int maxAgeSeconds;
+
+		Execution(StepContext context, int maxAgeSeconds) {
+			super(context);
+			this.maxAgeSeconds = maxAgeSeconds;
+		}
+
+		@Override
+		protected List<String> run() throws Exception {
+			Run<?, ?> run = getContext().get(Run.class);
+			TaskListener listener = getContext().get(TaskListener.class);
+			return getLabels(SCMSource.SourceByItem.findSource(run.getParent()), SCMHead.HeadByItem.findHead(run.getParent()),
+					maxAgeSeconds, listener.getLogger());
+		}
+	}
+
+	@Extension
+	public static class DescriptorImpl extends StepDescriptor {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Set<? extends Class<?>> getRequiredContext() {
+			return ImmutableSet.of(Run.class, TaskListener.class);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getFunctionName() {
+			return "prLabels";
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getDisplayName() {
+			return "Labels of the pull request being built";
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.util.FormValidation;
+import hudson.util.Secret;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.Symbol;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Caches labels in a Redis server shared by several controllers, see {@link RedisLabelStorage}.
+ */
+public class RedisLabelCacheBackend extends LabelCacheBackend {
+
+	static final int DEFAULT_PORT = 6379;
+
+	static final String DEFAULT_KEY_PREFIX = "github-label-filter:";
+
+	static final int DEFAULT_TTL_SECONDS = 86400;
+
+	private static final int TIMEOUT_MILLIS = 2000;
+
+	private final String host;
+
+	private int port = DEFAULT_PORT;
+
+	@CheckForNull
+	private Secret password;
+
+	private int database;
+
+	private String keyPrefix = DEFAULT_KEY_PREFIX;
+
+	private int ttlSeconds = DEFAULT_TTL_SECONDS;
+
+	@DataBoundConstructor
+	public RedisLabelCacheBackend(String host) {
+		this.host = StringUtils.trim(host);
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	@DataBoundSetter
+	public void setPort(int port) {
+		this.port = port > 0 ? port : DEFAULT_PORT;
+	}
+
+	@CheckForNull
+	public Secret getPassword() {
+		return password;
+	}
+
+	@DataBoundSetter
+	public void setPassword(@CheckForNull Secret password) {
+		this.password = password == null || password.getPlainText().isEmpty() ? null : password;
+	}
+
+	public int getDatabase() {
+		return database;
+	}
+
+	@DataBoundSetter
+	public void setDatabase(int database) {
+		this.database = Math.max(0, database);
+	}
+
+	public String getKeyPrefix() {
+		return keyPrefix;
+	}
+
+	@DataBoundSetter
+	public void setKeyPrefix(String keyPrefix) {
+		this.keyPrefix = StringUtils.defaultIfBlank(keyPrefix, DEFAULT_KEY_PREFIX);
+	}
+
+	public int getTtlSeconds() {
+		return ttlSeconds;
+	}
+
+	@DataBoundSetter
+	public void setTtlSeconds(int ttlSeconds) {
+		this.ttlSeconds = ttlSeconds > 0 ? ttlSeconds : DEFAULT_TTL_SECONDS;
+	}
+
+	@NonNull
+	@Override
+	LabelStorage createStorage() throws IOException {
+		if (StringUtils.isBlank(host)) {
+			throw new IOException("No Redis host is configured");
+		}
+		return new RedisLabelStorage(host, port, password == null ? null : password.getPlainText(), database,
+				keyPrefix, ttlSeconds, TIMEOUT_MILLIS);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof RedisLabelCacheBackend)) {
+			return false;
+		}
+		RedisLabelCacheBackend that = (RedisLabelCacheBackend) o;
+		return port == that.port
+				&& database == that.database
+				&& ttlSeconds == that.ttlSeconds
+				&& Objects.equals(host, that.host)
+				&& Objects.equals(password, that.password)
+				&& Objects.equals(keyPrefix, that.keyPrefix);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(host, port, database, keyPrefix);
+	}
+
+	@Extension
+	@Symbol("redis")
+	public static class DescriptorImpl extends LabelCacheBackendDescriptor {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@NonNull
+		@Override
+		public String getDisplayName() {
+			return "Redis, shared by several controllers";
+		}
+
+		@Restricted(NoExternalUse.class)
+		public FormValidation doCheckHost(@QueryParameter String host) {
+			return StringUtils.isBlank(host) ? FormValidation.error("Cannot be empty.") : FormValidation.ok();
+		}
+
+		@RequirePOST
+		@Restricted(NoExternalUse.class)
+		public FormValidation doTestConnection(@QueryParameter String host, @QueryParameter int port,
+				@QueryParameter Secret password, @QueryParameter int database) {
+			Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+			if (StringUtils.isBlank(host)) {
+				return FormValidation.error("No host.");
+			}
+			try (RespClient client = new RespClient(host.trim(), port > 0 ? port : DEFAULT_PORT, TIMEOUT_MILLIS)) {
+				if (password != null && !password.getPlainText().isEmpty()) {
+					client.call("AUTH", password.getPlainText());
+				}
+				if (database > 0) {
+					client.call("SELECT", database);
+				}
+				return FormValidation.ok("Connected, the server replied " + client.call("PING"));
+			} catch (IOException e) {
+				return FormValidation.error("Could not connect: " + e.getMessage());
+			}
+		}
+	}
+}
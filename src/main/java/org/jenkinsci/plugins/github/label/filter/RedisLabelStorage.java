@@ -0,0 +1,353 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the entries of a {@link LabelStore} in a Redis server shared by several controllers, so labels read from
+ * GitHub by one controller are reused by the others.
+ * <p>
+ * Each pull request is a key holding its serialized entry, which expires some time after it was written.
+ * {@link #compute} is atomic across controllers, with {@code WATCH}/{@code MULTI}/{@code EXEC}.
+ * When the server cannot be reached the storage behaves as empty, so labels are fetched from GitHub instead,
+ * and the failure is logged at most once a minute.
+ * After such a failure the server is not called again for {@link #BACKOFF_MILLIS}, so calls do not each wait for the
+ * connection timeout while it is down.
+ */
+final class RedisLabelStorage implements LabelStorage {
+	private static final Logger LOGGER = Logger.getLogger(RedisLabelStorage.class.getName());
+
+	private static final int VERSION = 2;
+
+	private static final int MAX_ATTEMPTS = 10;
+
+	private static final int MAX_IDLE_CONNECTIONS = 8;
+
+	private static final long FAILURE_LOG_INTERVAL_MILLIS = 60000;
+
+	static final long BACKOFF_MILLIS = 30000;
+
+	private final String host;
+
+	private final int port;
+
+	@CheckForNull
+	private final String password;
+
+	private final int database;
+
+	private final String keyPrefix;
+
+	private final int ttlSeconds;
+
+	private final int timeoutMillis;
+
+	private final Deque<RespClient> idle = new ConcurrentLinkedDeque<>();
+
+	private final AtomicLong lastFailureLog = new AtomicLong();
+
+	/**
+	 * The time until which the server is skipped after it could not be reached.
+	 */
+	private volatile long skipUntil;
+
+	RedisLabelStorage(@NonNull String host, int port, @CheckForNull String password, int database,
+					  @NonNull String keyPrefix, int ttlSeconds, int timeoutMillis) {
+		this.host = host;
+		this.port = port;
+		this.password = password;
+		this.database = database;
+		this.keyPrefix = keyPrefix;
+		this.ttlSeconds = ttlSeconds;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	@CheckForNull
+	@Override
+	public LabelStore.Entry get(@NonNull PullRequestKey key) {
+		try {
+			return execute(client -> decode((byte[]) client.call("GET", keyOf(key))));
+		} catch (IOException e) {
+			failed(e);
+			return null;
+		}
+	}
+
+	@Override
+	public void put(@NonNull PullRequestKey key, @NonNull LabelStore.Entry entry) {
+		try {
+			execute(client -> client.call("SET", keyOf(key), encode(entry), "EX", ttlSeconds));
+		} catch (IOException e) {
+			failed(e);
+		}
+	}
+
+	@CheckForNull
+	@Override
+	public LabelStore.Entry compute(@NonNull PullRequestKey key, @NonNull UnaryOperator<LabelStore.Entry> function) {
+		String redisKey = keyOf(key);
+		try {
+			for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+				Object[] result = execute(client -> {
+					client.call("WATCH", redisKey);
+					LabelStore.Entry cached = decode((byte[]) client.call("GET", redisKey));
+					LabelStore.Entry computed = function.apply(cached);
+					if (computed == cached) {
+						client.call("UNWATCH");
+						return new Object[]{computed};
+					}
+					client.call("MULTI");
+					if (computed == null) {
+						client.call("DEL", redisKey);
+					} else {
+						client.call("SET", redisKey, encode(computed), "EX", ttlSeconds);
+					}
+					return client.call("EXEC") == null ? null : new Object[]{computed};
+				});
+				if (result != null) {
+					return (LabelStore.Entry) result[0];
+				}
+			}
+			throw new IOException("Too many concurrent updates of " + redisKey);
+		} catch (IOException e) {
+			failed(e);
+			return function.apply(null);
+		}
+	}
+
+	@Override
+	public void invalidate(@NonNull PullRequestKey key) {
+		try {
+			execute(client -> client.call("DEL", keyOf(key)));
+		} catch (IOException e) {
+			failed(e);
+		}
+	}
+
+	@Override
+	public void forEach(@NonNull BiConsumer<PullRequestKey, LabelStore.Entry> action) {
+		scan(escape(keyPrefix) + "*", action);
+	}
+
+	@Override
+	public void forEachIn(@NonNull String host, @NonNull String owner, @NonNull String repository,
+						  @NonNull BiConsumer<PullRequestKey, LabelStore.Entry> action) {
+		PullRequestKey any = new PullRequestKey(host, owner, repository, 0);
+		String repositoryKey = keyOf(any);
+		scan(escape(repositoryKey.substring(0, repositoryKey.lastIndexOf('#') + 1)) + "*", action);
+	}
+
+	@Override
+	public long size() {
+		long[] size = new long[1];
+		forEach((key, entry) -> size[0]++);
+		return size[0];
+	}
+
+	@Override
+	public boolean isPersistent() {
+		return true;
+	}
+
+	@Override
+	public void close() {
+		RespClient client;
+		while ((client = idle.poll()) != null) {
+			closeQuietly(client);
+		}
+	}
+
+	private void scan(String pattern, BiConsumer<PullRequestKey, LabelStore.Entry> action) {
+		try {
+			String cursor = "0";
+			do {
+				String current = cursor;
+				List<?> reply = execute(client -> (List<?>) client.call("SCAN", current, "MATCH", pattern, "COUNT", 1000));
+				cursor = new String((byte[]) reply.get(0), StandardCharsets.UTF_8);
+				List<?> keys = (List<?>) reply.get(1);
+				if (keys.isEmpty()) {
+					continue;
+				}
+				Object[] arguments = new Object[keys.size() + 1];
+				arguments[0] = "MGET";
+				for (int i = 0; i < keys.size(); i++) {
+					arguments[i + 1] = keys.get(i);
+				}
+				List<?> values = execute(client -> (List<?>) client.call(arguments));
+				for (int i = 0; i < keys.size(); i++) {
+					PullRequestKey key = parseKey(new String((byte[]) keys.get(i), StandardCharsets.UTF_8));
+					LabelStore.Entry entry = values.get(i) instanceof byte[] ? decode((byte[]) values.get(i)) : null;
+					if (key != null && entry != null) {
+						action.accept(key, entry);
+					}
+				}
+			} while (!"0".equals(cursor));
+		} catch (IOException e) {
+			failed(e);
+		}
+	}
+
+	private <T> T execute(Call<T> call) throws IOException {
+		long now = System.currentTimeMillis();
+		if (now < skipUntil) {
+			throw new IOException("Skipped for " + (skipUntil - now) + " ms after a failure");
+		}
+		RespClient client = idle.poll();
+		if (client == null) {
+			try {
+				client = connect();
+			} catch (IOException e) {
+				backOff();
+				throw e;
+			}
+		}
+		T result;
+		try {
+			result = call.call(client);
+		} catch (RespClient.ErrorReply | RuntimeException e) {
+			closeQuietly(client);
+			throw e;
+		} catch (IOException e) {
+			closeQuietly(client);
+			backOff();
+			throw e;
+		}
+		if (idle.size() < MAX_IDLE_CONNECTIONS) {
+			idle.push(client);
+		} else {
+			closeQuietly(client);
+		}
+		return result;
+	}
+
+	private RespClient connect() throws IOException {
+		RespClient client = new RespClient(host, port, timeoutMillis);
+		try {
+			if (password != null) {
+				client.call("AUTH", password);
+			}
+			if (database != 0) {
+				client.call("SELECT", database);
+			}
+			return client;
+		} catch (IOException e) {
+			closeQuietly(client);
+			throw e;
+		}
+	}
+
+	/**
+	 * Skips the server for a while and drops the idle connections, which are likely broken too.
+	 */
+	private void backOff() {
+		skipUntil = System.currentTimeMillis() + BACKOFF_MILLIS;
+		close();
+	}
+
+	private void failed(IOException e) {
+		long now = System.currentTimeMillis();
+		long last = lastFailureLog.get();
+		if (now - last > FAILURE_LOG_INTERVAL_MILLIS && lastFailureLog.compareAndSet(last, now)) {
+			LOGGER.log(Level.WARNING, "Label cache at " + host + ":" + port + " failed, fetching labels from GitHub", e);
+		} else {
+			LOGGER.log(Level.FINE, "Label cache at " + host + ":" + port + " failed", e);
+		}
+	}
+
+	private String keyOf(PullRequestKey key) {
+		return keyPrefix + key;
+	}
+
+	@CheckForNull
+	private PullRequestKey parseKey(String redisKey) {
+		if (!redisKey.startsWith(keyPrefix)) {
+			return null;
+		}
+		String key = redisKey.substring(keyPrefix.length());
+		int hash = key.lastIndexOf('#');
+		String[] repository = hash < 0 ? new String[0] : key.substring(0, hash).split("/", -1);
+		if (repository.length != 3) {
+			return null;
+		}
+		try {
+			return new PullRequestKey(repository[0], repository[1], repository[2], Integer.parseInt(key.substring(hash + 1)));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Escapes the glob characters of a {@code SCAN} pattern.
+	 */
+	private static String escape(String value) {
+		StringBuilder escaped = new StringBuilder(value.length());
+		for (char c : value.toCharArray()) {
+			if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+				escaped.append('\\');
+			}
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
+
+	static byte[] encode(@NonNull LabelStore.Entry entry) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bytes);
+		data.writeByte(VERSION);
+		data.writeLong(entry.getUpdatedAtMillis());
+		data.writeLong(entry.getStoredAt());
+		data.writeShort(entry.getLabels().size());
+		for (String label : entry.getLabels()) {
+			data.writeUTF(label);
+		}
+		return bytes.toByteArray();
+	}
+
+	@CheckForNull
+	static LabelStore.Entry decode(@CheckForNull byte[] bytes) throws IOException {
+		if (bytes == null) {
+			return null;
+		}
+		DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes));
+		if (data.readByte() != VERSION) {
+			return null;
+		}
+		long updatedAt = data.readLong();
+		long storedAt = data.readLong();
+		int size = data.readUnsignedShort();
+		List<String> labels = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			labels.add(data.readUTF());
+		}
+		return new LabelStore.Entry(labels, updatedAt, storedAt);
+	}
+
+	private static void closeQuietly(RespClient client) {
+		try {
+			client.close();
+		} catch (IOException e) {
+			LOGGER.log(Level.FINEST, "Could not close a label cache connection", e);
+		}
+	}
+
+	@FunctionalInterface
+	private interface Call<T> {
+		T call(RespClient client) throws IOException;
+	}
+}
@@ -0,0 +1,159 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A minimal client of the Redis serialization protocol (RESP 2), enough for a key-value cache.
+ * A client is one connection and is not thread safe.
+ * <p>
+ * Replies are returned as {@link String} for simple strings, {@link Long} for integers, {@code byte[]} for bulk
+ * strings and {@link List} for arrays, with {@code null} for null bulk strings and arrays.
+ * Error replies are thrown as {@link ErrorReply}.
+ */
+final class RespClient implements Closeable {
+
+	private final Socket socket;
+
+	private final InputStream in;
+
+	private final OutputStream out;
+
+	RespClient(@NonNull String host, int port, int timeoutMillis) throws IOException {
+		socket = new Socket();
+		try {
+			socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+			socket.setSoTimeout(timeoutMillis);
+			socket.setTcpNoDelay(true);
+			in = new BufferedInputStream(socket.getInputStream());
+			out = new BufferedOutputStream(socket.getOutputStream());
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Sends a command and reads its reply.
+	 *
+	 * @param arguments the command and its arguments, as {@link String}s, {@code byte[]}s or numbers
+	 * @return the reply
+	 * @throws IOException if the connection failed or the server replied with an error
+	 */
+	@CheckForNull
+	Object call(@NonNull Object... arguments) throws IOException {
+		write(arguments);
+		out.flush();
+		return read();
+	}
+
+	private void write(Object[] arguments) throws IOException {
+		out.write(('*' + Integer.toString(arguments.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+		for (Object argument : arguments) {
+			byte[] bytes = argument instanceof byte[]
+					? (byte[]) argument
+					: String.valueOf(argument).getBytes(StandardCharsets.UTF_8);
+			out.write(('$' + Integer.toString(bytes.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+			out.write(bytes);
+			out.write('\r');
+			out.write('\n');
+		}
+	}
+
+	@CheckForNull
+	private Object read() throws IOException {
+		int type = in.read();
+		if (type < 0) {
+			throw new EOFException("Connection closed by the server");
+		}
+		String line = readLine();
+		switch (type) {
+			case '+':
+				return line;
+			case '-':
+				throw new ErrorReply(line);
+			case ':':
+				return Long.parseLong(line);
+			case '$': {
+				int length = Integer.parseInt(line);
+				if (length < 0) {
+					return null;
+				}
+				byte[] bytes = new byte[length];
+				int read = 0;
+				while (read < length) {
+					int n = in.read(bytes, read, length - read);
+					if (n < 0) {
+						throw new EOFException("Connection closed by the server");
+					}
+					read += n;
+				}
+				readLine();
+				return bytes;
+			}
+			case '*': {
+				int count = Integer.parseInt(line);
+				if (count < 0) {
+					return null;
+				}
+				List<Object> elements = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					try {
+						elements.add(read());
+					} catch (ErrorReply e) {
+						elements.add(e);
+					}
+				}
+				return elements;
+			}
+			default:
+				throw new IOException("Unexpected reply type " + (char) type);
+		}
+	}
+
+	private String readLine() throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int c;
+		while ((c = in.read()) != '\r') {
+			if (c < 0) {
+				throw new EOFException("Connection closed by the server");
+			}
+			line.write(c);
+		}
+		if (in.read() != '\n') {
+			throw new IOException("Malformed reply");
+		}
+		return new String(line.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+
+	/**
+	 * An error reply of the server.
+	 */
+	static final class ErrorReply extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		ErrorReply(String message) {
+			super(message);
+		}
+	}
+}
@@ -0,0 +1,325 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Traces the handling of label changes as spans, with the field names of OpenTelemetry.
+ * <p>
+ * A trace starts when a webhook event is received or label events are polled, with spans for parsing the payload,
+ * routing it to the projects, aborting builds and dispatching their indexing. During a scan, each filter decision
+ * starts a trace of its own, with a span for the label lookup. Spans carry the repository and the pull request
+ * numbers as attributes.
+ * <p>
+ * Each ended span is logged as a line of JSON by this class's logger at {@code FINE}, so tracing is enabled by a
+ * log recorder without restarting Jenkins. While that level is not logged, instrumented code only checks a flag.
+ */
+@Restricted(NoExternalUse.class)
+public final class Tracing {
+	private static final Logger LOGGER = Logger.getLogger(Tracing.class.getName());
+
+	static final String REPOSITORY = "github.repository";
+
+	static final String PULL_REQUEST = "github.pull_request";
+
+	static final String PULL_REQUESTS = "github.pull_requests";
+
+	static final String PROJECT = "jenkins.project";
+
+	private static final Exporter LOG = span -> LOGGER.log(Level.FINE, "{0}", span);
+
+	/**
+	 * The exporter set by tests, or {@code null} to log spans.
+	 */
+	@CheckForNull
+	private static volatile Exporter exporter;
+
+	/**
+	 * The wall clock time at {@link System#nanoTime()} zero, so spans are timed with the monotonic clock.
+	 */
+	private static final long EPOCH_OFFSET_NANOS = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+	private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+	private Tracing() {
+	}
+
+	/**
+	 * Starts a trace, whose span is current until closed.
+	 *
+	 * @param name the span name
+	 * @return the span, which does not record if tracing is disabled
+	 */
+	@NonNull
+	static Span startTrace(@NonNull String name) {
+		Exporter current = exporter;
+		if (current == null) {
+			if (!LOGGER.isLoggable(Level.FINE)) {
+				return Span.NOOP;
+			}
+			current = LOG;
+		}
+		return new Span(current, newId(16), null, name).makeCurrent();
+	}
+
+	/**
+	 * Starts a child of the current span, which is current until closed.
+	 *
+	 * @param name the span name
+	 * @return the span, which does not record if there is no current span
+	 */
+	@NonNull
+	static Span start(@NonNull String name) {
+		Span parent = CURRENT.get();
+		return parent == null ? Span.NOOP : parent.child(name).makeCurrent();
+	}
+
+	/**
+	 * Starts a child of a span of another thread, which is current until closed.
+	 *
+	 * @param parent the parent span
+	 * @param name   the span name
+	 * @return the span, which does not record if the parent does not
+	 */
+	@NonNull
+	static Span start(@NonNull Span parent, @NonNull String name) {
+		return parent.isRecording() ? parent.child(name).makeCurrent() : Span.NOOP;
+	}
+
+	/**
+	 * Gets the current span.
+	 *
+	 * @return the span, which does not record if there is none
+	 */
+	@NonNull
+	static Span current() {
+		Span current = CURRENT.get();
+		return current == null ? Span.NOOP : current;
+	}
+
+	/**
+	 * Starts the span of the filter decision of a pull request, which is current until closed.
+	 * It is a child of the current span, or starts a trace during a scan.
+	 *
+	 * @param trait       the trait class
+	 * @param pullRequest the pull request number
+	 * @return the span, which does not record if tracing is disabled
+	 */
+	@NonNull
+	static Span startFilterDecision(@NonNull Class<?> trait, int pullRequest) {
+		Span parent = CURRENT.get();
+		Span span = parent == null ? startTrace("filter") : parent.child("filter").makeCurrent();
+		return span.setAttribute("trait", trait.getSimpleName()).setAttribute(PULL_REQUEST, pullRequest);
+	}
+
+	/**
+	 * Sets the exporter, for tests.
+	 *
+	 * @param exporter the exporter or {@code null} to log spans
+	 * @return the previous exporter
+	 */
+	@CheckForNull
+	static Exporter setExporter(@CheckForNull Exporter exporter) {
+		Exporter previous = Tracing.exporter;
+		Tracing.exporter = exporter;
+		return previous;
+	}
+
+	private static String newId(int bytes) {
+		StringBuilder id = new StringBuilder(bytes * 2);
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < bytes; i++) {
+			id.append(Character.forDigit(random.nextInt(16), 16)).append(Character.forDigit(random.nextInt(16), 16));
+		}
+		return id.toString();
+	}
+
+	/**
+	 * A span of a trace. Spans started on a thread are current on it until closed, which exports them.
+	 */
+	static final class Span implements AutoCloseable {
+
+		static final Span NOOP = new Span();
+
+		@CheckForNull
+		private final Exporter exporter;
+
+		private final String traceId;
+
+		private final String spanId;
+
+		@CheckForNull
+		private final String parentSpanId;
+
+		private final String name;
+
+		private final long startEpochNanos;
+
+		private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+		private final AtomicBoolean ended = new AtomicBoolean();
+
+		private long endEpochNanos;
+
+		@CheckForNull
+		private Span previous;
+
+		private boolean current;
+
+		private Span() {
+			this.exporter = null;
+			this.traceId = "";
+			this.spanId = "";
+			this.parentSpanId = null;
+			this.name = "";
+			this.startEpochNanos = 0;
+		}
+
+		private Span(@NonNull Exporter exporter, @NonNull String traceId, @CheckForNull String parentSpanId, @NonNull String name) {
+			this.exporter = exporter;
+			this.traceId = traceId;
+			this.spanId = newId(8);
+			this.parentSpanId = parentSpanId;
+			this.name = name;
+			this.startEpochNanos = EPOCH_OFFSET_NANOS + System.nanoTime();
+		}
+
+		/**
+		 * Creates a child of this span, which is not current.
+		 *
+		 * @param name the span name
+		 * @return the child
+		 */
+		@NonNull
+		Span child(@NonNull String name) {
+			return exporter == null ? NOOP : new Span(exporter, traceId, spanId, name);
+		}
+
+		private Span makeCurrent() {
+			if (exporter != null) {
+				previous = CURRENT.get();
+				current = true;
+				CURRENT.set(this);
+			}
+			return this;
+		}
+
+		boolean isRecording() {
+			return exporter != null;
+		}
+
+		/**
+		 * Sets an attribute.
+		 *
+		 * @param key   the attribute key
+		 * @param value a string, number, boolean or collection, ignored if {@code null}
+		 * @return this span
+		 */
+		@NonNull
+		Span setAttribute(@NonNull String key, @CheckForNull Object value) {
+			if (exporter != null && value != null) {
+				Object attribute = value instanceof Number || value instanceof Boolean ? value
+						: value instanceof Collection ? ((Collection<?>) value).stream().map(String::valueOf).collect(Collectors.joining(","))
+						: value.toString();
+				synchronized (attributes) {
+					attributes.put(key, attribute);
+				}
+			}
+			return this;
+		}
+
+		@NonNull
+		String getTraceId() {
+			return traceId;
+		}
+
+		@NonNull
+		String getSpanId() {
+			return spanId;
+		}
+
+		@CheckForNull
+		String getParentSpanId() {
+			return parentSpanId;
+		}
+
+		@NonNull
+		String getName() {
+			return name;
+		}
+
+		long getStartEpochNanos() {
+			return startEpochNanos;
+		}
+
+		long getEndEpochNanos() {
+			return endEpochNanos;
+		}
+
+		@NonNull
+		Map<String, Object> getAttributes() {
+			synchronized (attributes) {
+				return new LinkedHashMap<>(attributes);
+			}
+		}
+
+		/**
+		 * Ends this span and exports it. Ending a span more than once has no effect.
+		 */
+		@Override
+		public void close() {
+			if (exporter == null || !ended.compareAndSet(false, true)) {
+				return;
+			}
+			endEpochNanos = EPOCH_OFFSET_NANOS + System.nanoTime();
+			if (current && CURRENT.get() == this) {
+				if (previous == null) {
+					CURRENT.remove();
+				} else {
+					CURRENT.set(previous);
+				}
+			}
+			try {
+				exporter.export(this);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.FINE, "Could not export span " + name, e);
+			}
+		}
+
+		@Override
+		public String toString() {
+			JSONObject json = new JSONObject();
+			json.put("traceId", traceId);
+			json.put("spanId", spanId);
+			if (parentSpanId != null) {
+				json.put("parentSpanId", parentSpanId);
+			}
+			json.put("name", name);
+			json.put("startTimeUnixNano", startEpochNanos);
+			json.put("endTimeUnixNano", endEpochNanos);
+			json.put("attributes", getAttributes());
+			return json.toString();
+		}
+	}
+
+	/**
+	 * Exports ended spans.
+	 */
+	interface Exporter {
+
+		void export(@NonNull Span span);
+	}
+}
@@ -0,0 +1,168 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+
+/**
+ * Emits the events of {@link FlightRecorderEvents} with the {@code jdk.jfr} API.
+ * Always compiled for Java 11 by the {@code compile-jfr} execution, and only loaded when the runtime has the API.
+ */
+@IgnoreJRERequirement
+final class JfrRecorder implements FlightRecorderEvents.Recorder {
+
+	private final EventType filterDecision = EventType.getEventType(FilterDecisionEvent.class);
+
+	private final EventType labelLookup = EventType.getEventType(LabelLookupEvent.class);
+
+	private final EventType webhook = EventType.getEventType(WebhookEvent.class);
+
+	@Override
+	public boolean isFilterDecisionEnabled() {
+		return filterDecision.isEnabled();
+	}
+
+	@Override
+	public void filterDecision(String trait, int pullRequest, int labelCount, boolean excluded, long elapsed) {
+		FilterDecisionEvent event = new FilterDecisionEvent();
+		event.trait = trait;
+		event.pullRequest = pullRequest;
+		event.labelCount = labelCount;
+		event.excluded = excluded;
+		event.elapsed = elapsed;
+		event.commit();
+	}
+
+	@Override
+	public boolean isLabelLookupEnabled() {
+		return labelLookup.isEnabled();
+	}
+
+	@Override
+	public void labelLookup(String pullRequest, String source, int labelCount, long elapsed) {
+		LabelLookupEvent event = new LabelLookupEvent();
+		event.pullRequest = pullRequest;
+		event.source = source;
+		event.labelCount = labelCount;
+		event.elapsed = elapsed;
+		event.commit();
+	}
+
+	@Override
+	public boolean isWebhookEnabled() {
+		return webhook.isEnabled();
+	}
+
+	@Override
+	public void webhook(String ghEvent, String action, String repository, long parse, long routing, long dispatch,
+						long elapsed, int projects, int scheduled) {
+		WebhookEvent event = new WebhookEvent();
+		event.event = ghEvent;
+		event.action = action;
+		event.repository = repository;
+		event.parse = parse;
+		event.routing = routing;
+		event.dispatch = dispatch;
+		event.elapsed = elapsed;
+		event.projects = projects;
+		event.scheduled = scheduled;
+		event.commit();
+	}
+
+	@Name("org.jenkinsci.plugins.github.label.filter.FilterDecision")
+	@Label("Labels Filter Decision")
+	@Description("A labels filter trait deciding whether to exclude a pull request")
+	@Category({"Jenkins", "GitHub Label Filter"})
+	@Enabled(false)
+	@StackTrace(false)
+	@IgnoreJRERequirement
+	static final class FilterDecisionEvent extends Event {
+
+		@Label("Trait")
+		String trait;
+
+		@Label("Pull Request")
+		int pullRequest;
+
+		@Label("Label Count")
+		int labelCount;
+
+		@Label("Excluded")
+		boolean excluded;
+
+		@Label("Elapsed")
+		@Timespan(Timespan.NANOSECONDS)
+		long elapsed;
+	}
+
+	@Name("org.jenkinsci.plugins.github.label.filter.LabelLookup")
+	@Label("Pull Request Labels Lookup")
+	@Description("The labels of a pull request read from the store or from GitHub")
+	@Category({"Jenkins", "GitHub Label Filter"})
+	@Enabled(false)
+	@StackTrace(false)
+	@IgnoreJRERequirement
+	static final class LabelLookupEvent extends Event {
+
+		@Label("Pull Request")
+		String pullRequest;
+
+		@Label("Source")
+		String source;
+
+		@Label("Label Count")
+		int labelCount;
+
+		@Label("Elapsed")
+		@Timespan(Timespan.NANOSECONDS)
+		long elapsed;
+	}
+
+	@Name("org.jenkinsci.plugins.github.label.filter.Webhook")
+	@Label("Labels Filter Webhook")
+	@Description("The handling of a GitHub webhook event by the labels filter subscriber")
+	@Category({"Jenkins", "GitHub Label Filter"})
+	@Enabled(false)
+	@StackTrace(false)
+	@IgnoreJRERequirement
+	static final class WebhookEvent extends Event {
+
+		@Label("Event")
+		String event;
+
+		@Label("Action")
+		String action;
+
+		@Label("Repository")
+		String repository;
+
+		@Label("Parse")
+		@Timespan(Timespan.NANOSECONDS)
+		long parse;
+
+		@Label("Routing")
+		@Timespan(Timespan.NANOSECONDS)
+		long routing;
+
+		@Label("Dispatch")
+		@Timespan(Timespan.NANOSECONDS)
+		long dispatch;
+
+		@Label("Elapsed")
+		@Timespan(Timespan.NANOSECONDS)
+		long elapsed;
+
+		@Label("Projects")
+		int projects;
+
+		@Label("Scheduled")
+		int scheduled;
+	}
+}
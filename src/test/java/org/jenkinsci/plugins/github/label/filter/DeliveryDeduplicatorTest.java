@@ -0,0 +1,55 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeliveryDeduplicatorTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void testRecognizesDuplicates() {
+        DeliveryDeduplicator deduplicator = new DeliveryDeduplicator(100, 1000, now::get);
+        long first = DeliveryDeduplicator.fingerprint("72d3162e-cc78-11e3-81ab-4c9367dc0958", "{}");
+        long second = DeliveryDeduplicator.fingerprint("d1c9e6a0-cc78-11e3-81ab-4c9367dc0958", "{}");
+
+        assertThat(deduplicator.isDuplicate(first)).isFalse();
+        assertThat(deduplicator.isDuplicate(second)).isFalse();
+        assertThat(deduplicator.isDuplicate(first)).isTrue();
+        assertThat(deduplicator.getAccepted()).isEqualTo(2);
+        assertThat(deduplicator.getDuplicates()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFallsBackToPayload() {
+        assertThat(DeliveryDeduplicator.fingerprint(null, "{\"action\":\"labeled\"}"))
+                .isEqualTo(DeliveryDeduplicator.fingerprint("", "{\"action\":\"labeled\"}"))
+                .isNotEqualTo(DeliveryDeduplicator.fingerprint(null, "{\"action\":\"unlabeled\"}"));
+    }
+
+    @Test
+    public void testForgetsAfterTwoWindows() {
+        DeliveryDeduplicator deduplicator = new DeliveryDeduplicator(100, 1000, now::get);
+        long fingerprint = DeliveryDeduplicator.fingerprint("72d3162e-cc78-11e3-81ab-4c9367dc0958", "{}");
+
+        assertThat(deduplicator.isDuplicate(fingerprint)).isFalse();
+        now.set(1500);
+        assertThat(deduplicator.isDuplicate(fingerprint)).isTrue();
+        now.set(3000);
+        assertThat(deduplicator.isDuplicate(fingerprint)).isFalse();
+    }
+
+    @Test
+    public void testNoFalsePositivesWithinCapacity() {
+        DeliveryDeduplicator deduplicator = new DeliveryDeduplicator(10000, 60000, now::get);
+        for (int i = 0; i < 10000; i++) {
+            assertThat(deduplicator.isDuplicate(DeliveryDeduplicator.fingerprint("delivery-" + i, "{}"))).isFalse();
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertThat(deduplicator.isDuplicate(DeliveryDeduplicator.fingerprint("delivery-" + i, "{}"))).isTrue();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import hudson.model.Executor;
+import hudson.model.Queue;
+import hudson.model.Result;
+import jenkins.scm.api.SCMHead;
+import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ExcludedBuildsAborterTest {
+
+    private final WorkflowMultiBranchProject project = mock(WorkflowMultiBranchProject.class);
+
+    private final WorkflowJob job = mock(WorkflowJob.class);
+
+    private final ExcludedBuildsAborter aborter = spy(new ExcludedBuildsAborter());
+
+    private PullRequestSCMHead head(int number) {
+        PullRequestSCMHead head = mock(PullRequestSCMHead.class);
+        when(head.getNumber()).thenReturn(number);
+        return head;
+    }
+
+    @Test
+    public void testAbort() {
+        WorkflowJob headJob = mock(WorkflowJob.class);
+        WorkflowJob otherJob = mock(WorkflowJob.class);
+        WorkflowJob branchJob = mock(WorkflowJob.class);
+        doReturn(Arrays.asList(job, headJob, otherJob, branchJob)).when(project).getItems();
+        PullRequestSCMHead merge = head(7);
+        doReturn(merge).when(aborter).getHead(job);
+        PullRequestSCMHead head = head(7);
+        doReturn(head).when(aborter).getHead(headJob);
+        PullRequestSCMHead other = head(8);
+        doReturn(other).when(aborter).getHead(otherJob);
+        doReturn(new SCMHead("master")).when(aborter).getHead(branchJob);
+        assertThat(aborter.getJobs(project, 7)).containsExactly(job, headJob);
+        doReturn(Collections.emptyList()).when(aborter).getQueuedBuilds(headJob);
+        doReturn(Collections.emptyList()).when(aborter).getRunningBuilds(headJob);
+
+        Queue.Item queued = mock(Queue.Item.class);
+        doReturn(Arrays.asList(queued)).when(aborter).getQueuedBuilds(job);
+        doReturn(true).when(aborter).cancel(queued);
+        Executor running = mock(Executor.class);
+        doReturn(Arrays.asList(running)).when(aborter).getRunningBuilds(job);
+
+        assertThat(aborter.abort(project, 7, Arrays.asList("do-not-build"))).isEqualTo(2);
+        ArgumentCaptor<ExcludedBuildsAborter.ExcludedPullRequestInterruption> cause =
+                ArgumentCaptor.forClass(ExcludedBuildsAborter.ExcludedPullRequestInterruption.class);
+        verify(running).interrupt(eq(Result.ABORTED), cause.capture());
+        assertThat(cause.getValue().getShortDescription())
+                .isEqualTo("Aborted because the labels of pull request #7 exclude it: do-not-build");
+    }
+
+    @Test
+    public void testWithoutBranchProject() {
+        assertThat(aborter.abort(project, 7, Collections.emptyList())).isZero();
+        verify(aborter, never()).getQueuedBuilds(any());
+        verify(aborter, never()).getRunningBuilds(any());
+    }
+}
@@ -0,0 +1,39 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class FlightRecorderEventsTest {
+
+    @Test
+    public void testFallsBackWithoutRecorder() {
+        assertThat(FlightRecorderEvents.createRecorder(FlightRecorderEvents.class.getName() + "Missing")).isNull();
+    }
+
+    @Test
+    public void testLoadsJfrRecorder() {
+        assumeTrue("Flight Recorder is not available", isAvailable("jdk.jfr.Event"));
+        FlightRecorderEvents.Recorder recorder = FlightRecorderEvents.createRecorder(FlightRecorderEvents.JFR_RECORDER);
+        assertThat(recorder).isNotNull();
+        assertThat(recorder.isFilterDecisionEnabled()).isFalse();
+        assertThat(recorder.isLabelLookupEnabled()).isFalse();
+        assertThat(recorder.isWebhookEnabled()).isFalse();
+    }
+
+    @Test
+    public void testDisabledEventsDoNotReadTheClock() {
+        assertThat(FlightRecorderEvents.startFilterDecision()).isZero();
+        FlightRecorderEvents.filterDecision(FlightRecorderEventsTest.class, 1, 0, false, 0);
+    }
+
+    private static boolean isAvailable(String className) {
+        try {
+            Class.forName(className);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GitHub;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GitHubLabelsClientTest {
+
+    private HttpServer server;
+
+    private GitHubLabelsClient client;
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v3/repos/owner1/repo1", exchange -> respond(exchange,
+                "{\"name\":\"repo1\",\"full_name\":\"owner1/repo1\",\"owner\":{\"login\":\"owner1\"}}"));
+        server.createContext("/api/v3/repos/owner1/repo1/issues", exchange -> {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v3/repos/owner1/repo1/issues";
+            if (exchange.getRequestURI().getQuery().contains("page=2")) {
+                respond(exchange, "[{\"number\":14,\"updated_at\":\"2019-05-15T15:20:33Z\",\"labels\":[],\"pull_request\":{}}]");
+            } else {
+                exchange.getResponseHeaders().add("Link", "<" + base + "?state=open&per_page=100&page=2>; rel=\"next\", <"
+                        + base + "?state=open&per_page=100&page=2>; rel=\"last\"");
+                respond(exchange, "[{\"number\":12,\"updated_at\":\"2019-05-15T15:20:33Z\",\"labels\":[{\"name\":\"label1\"}],\"pull_request\":{}},"
+                        + "{\"number\":13,\"updated_at\":\"2019-05-15T15:20:33Z\",\"labels\":[{\"name\":\"label2\"}]}]");
+            }
+        });
+        server.start();
+        client = new GitHubLabelsClient(GitHub.connectToEnterpriseAnonymously(
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v3"));
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        exchange.close();
+    }
+
+    @Test
+    public void testListOpenPullRequests() throws Exception {
+        List<GitHubLabelsClient.ListedPullRequest> pullRequests = client.listOpenPullRequests("owner1", "repo1");
+        assertThat(pullRequests).extracting(GitHubLabelsClient.ListedPullRequest::getNumber).containsExactly(12, 14);
+        assertThat(pullRequests.get(0).getLabels()).containsExactly("label1");
+        assertThat(pullRequests.get(0).getUpdatedAt()).isEqualTo(Date.from(Instant.parse("2019-05-15T15:20:33Z")));
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        LabelStore store = new LabelStore(10, 60);
+        GitHubSCMSource source = mock(GitHubSCMSource.class);
+        when(source.getApiUri()).thenReturn("https://github.example.com/api/v3");
+        when(source.getRepoOwner()).thenReturn("owner1");
+        when(source.getRepository()).thenReturn("repo1");
+
+        assertThat(LabelStoreWarmup.warmUp(store, source, client)).isEqualTo(2);
+        assertThat(store.getIfPresent(new PullRequestKey("github.example.com", "owner1", "repo1", 12))).containsExactly("label1");
+        assertThat(store.getIfPresent(new PullRequestKey("github.example.com", "owner1", "repo1", 13))).isNull();
+    }
+
+    @Test
+    public void testMissingRepository() {
+        assertThatThrownBy(() -> client.listOpenPullRequests("owner1", "missing"))
+                .isInstanceOf(FileNotFoundException.class)
+                .matches(e -> !LabelsCircuitBreaker.isUnavailable((IOException) e));
+    }
+}
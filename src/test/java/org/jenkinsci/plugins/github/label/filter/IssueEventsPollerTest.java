@@ -0,0 +1,99 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GitHub;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IssueEventsPollerTest {
+
+    private static final String REPOSITORY = "github.com/poller/repo1";
+
+    private HttpServer server;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile String eventsJson = "[" + event(101, "labeled", 12, "2019-05-15T15:20:33Z", "label1") + "]";
+
+    private final GitHubSCMSource source = mock(GitHubSCMSource.class);
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v3/repos/poller/repo1", exchange -> respond(exchange,
+                "{\"name\":\"repo1\",\"full_name\":\"poller/repo1\",\"owner\":{\"login\":\"poller\"}}"));
+        server.createContext("/api/v3/repos/poller/repo1/issues/events", exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, eventsJson);
+        });
+        server.start();
+        when(source.getRepoOwner()).thenReturn("poller");
+        when(source.getRepository()).thenReturn("repo1");
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        exchange.close();
+    }
+
+    @Test
+    public void testPoll() throws Exception {
+        GitHubLabelsClient client = new GitHubLabelsClient(GitHub.connectToEnterpriseAnonymously(
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v3"));
+        LabelStore store = new LabelStore(10, 60);
+        IssueEventsPoller poller = new IssueEventsPoller();
+
+        // the first poll only sets the cursor
+        assertThat(poller.poll(store, REPOSITORY, source, client)).isEmpty();
+        assertThat(store.getIfPresent(new PullRequestKey("github.com", "poller", "repo1", 12))).containsExactly("label1");
+
+        // nothing happened
+        assertThat(poller.poll(store, REPOSITORY, source, client)).isEmpty();
+        assertThat(store.getIfPresent(new PullRequestKey("github.com", "poller", "repo1", 12))).containsExactly("label1");
+
+        // the webhook of pull request 14 was delivered, issue 20 is not a pull request
+        store.update(new PullRequestKey("github.com", "poller", "repo1", 14), Arrays.asList("label3"), new Date(0));
+        eventsJson = "[" + event(104, "labeled", 14, "2019-05-15T16:20:33Z", "label3") + ","
+                + "{\"id\":103,\"event\":\"labeled\",\"issue\":{\"number\":20,\"updated_at\":\"2019-05-15T16:20:33Z\",\"labels\":[]}},"
+                + event(102, "unlabeled", 12, "2019-05-15T16:20:33Z") + ","
+                + event(101, "labeled", 12, "2019-05-15T15:20:33Z", "label1") + "]";
+        assertThat(poller.poll(store, REPOSITORY, source, client)).containsExactly(12);
+        assertThat(store.getIfPresent(new PullRequestKey("github.com", "poller", "repo1", 12))).isEmpty();
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    private static String event(long id, String type, int number, String updatedAt, String... labels) {
+        StringBuilder json = new StringBuilder("{\"id\":").append(id).append(",\"event\":\"").append(type)
+                .append("\",\"issue\":{\"number\":").append(number).append(",\"updated_at\":\"").append(updatedAt)
+                .append("\",\"pull_request\":{},\"labels\":[");
+        for (int i = 0; i < labels.length; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"name\":\"").append(labels[i]).append("\"}");
+        }
+        return json.append("]}}").toString();
+    }
+}
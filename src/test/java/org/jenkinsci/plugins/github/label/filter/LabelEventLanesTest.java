@@ -0,0 +1,87 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LabelEventLanesTest {
+
+    @Test
+    public void testInclusionsGoFirst() throws Exception {
+        LabelEventLanes lanes = new LabelEventLanes();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(6);
+        List<String> handled = new CopyOnWriteArrayList<>();
+        lanes.submit(LabelEventLanes.Effect.UNCHANGED, () -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        String[] events = {"UNCHANGED-1", "EXCLUDED-1", "INCLUDED-1", "UNCHANGED-2", "INCLUDED-2"};
+        for (String event : events) {
+            lanes.submit(LabelEventLanes.Effect.valueOf(event.substring(0, event.indexOf('-'))), () -> {
+                handled.add(event);
+                done.countDown();
+            });
+        }
+        assertThat(lanes.getPending(LabelEventLanes.Effect.INCLUDED)).isEqualTo(2);
+        blocked.countDown();
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactly("INCLUDED-1", "INCLUDED-2", "EXCLUDED-1", "UNCHANGED-1", "UNCHANGED-2");
+        assertThat(lanes.getPending(LabelEventLanes.Effect.UNCHANGED)).isZero();
+    }
+
+    @Test
+    public void testClassifiesOffTheSubmittingThread() throws Exception {
+        LabelEventLanes lanes = new LabelEventLanes();
+        CountDownLatch done = new CountDownLatch(2);
+        List<Thread> classifiers = new CopyOnWriteArrayList<>();
+        lanes.submit(new PullRequestKey("github.com", "owner1", "repo1", 1), () -> {
+            classifiers.add(Thread.currentThread());
+            return LabelEventLanes.Effect.UNCHANGED;
+        }, done::countDown);
+        lanes.submit(new PullRequestKey("github.com", "owner1", "repo1", 2), () -> {
+            throw new IllegalStateException("could not classify");
+        }, done::countDown);
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(classifiers).hasSize(1).doesNotContain(Thread.currentThread());
+    }
+
+    @Test
+    public void testDropsEventsBeyondCapacityAndDuplicates() {
+        List<Runnable> intake = new ArrayList<>();
+        List<Runnable> lane = new ArrayList<>();
+        LabelEventLanes lanes = new LabelEventLanes(intake::add, lane::add, 2);
+        PullRequestKey key1 = new PullRequestKey("github.com", "owner1", "repo1", 1);
+        PullRequestKey key2 = new PullRequestKey("github.com", "owner1", "repo1", 2);
+        PullRequestKey key3 = new PullRequestKey("github.com", "owner1", "repo1", 3);
+        Runnable noop = () -> {
+        };
+
+        assertThat(lanes.submit(key1, () -> LabelEventLanes.Effect.UNCHANGED, noop)).isTrue();
+        // an event of the same pull request waits to be classified
+        assertThat(lanes.submit(key1, () -> LabelEventLanes.Effect.UNCHANGED, noop)).isFalse();
+        assertThat(lanes.submit(key2, () -> LabelEventLanes.Effect.UNCHANGED, noop)).isTrue();
+        // full
+        assertThat(lanes.submit(key3, () -> LabelEventLanes.Effect.UNCHANGED, noop)).isFalse();
+        assertThat(intake).hasSize(2);
+
+        // once classified, a new event of the pull request waits behind it, but the lanes are still full
+        intake.get(0).run();
+        assertThat(lanes.submit(key1, () -> LabelEventLanes.Effect.UNCHANGED, noop)).isFalse();
+        lane.get(0).run();
+        assertThat(lanes.submit(key1, () -> LabelEventLanes.Effect.UNCHANGED, noop)).isTrue();
+        assertThat(lanes.submit(key3, () -> LabelEventLanes.Effect.UNCHANGED, noop)).isFalse();
+    }
+}
@@ -0,0 +1,32 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LabelSetTest {
+
+    @Test
+    public void testInternsNames() {
+        LabelSet first = LabelSet.of(Arrays.asList("bug", "needs review", "bug"));
+        LabelSet second = LabelSet.of(Arrays.asList("needs review", "bug"));
+        assertThat(first).hasSize(2).containsExactlyInAnyOrder("bug", "needs review");
+        assertThat(first).isEqualTo(second);
+        assertThat(first.get(0)).isSameAs(second.get(0));
+        assertThat(first.contains("bug")).isTrue();
+        assertThat(first.contains("never interned label")).isFalse();
+        assertThat(LabelSet.of(Collections.emptyList())).isSameAs(LabelSet.EMPTY);
+    }
+
+    @Test
+    public void testMatchesConfigurationById() {
+        LabelSet labels = LabelSet.of(Arrays.asList("label1", "label2"));
+        assertThat(LabelsConfiguration.parse("label2,label1").isMatchedByAll(labels)).isTrue();
+        assertThat(LabelsConfiguration.parse("label1,label3").isMatchedByAll(labels)).isFalse();
+        assertThat(LabelsConfiguration.parse("label3,label2").matchesAny(labels)).isTrue();
+        assertThat(LabelsConfiguration.parse("label3,label4").matchesAny(labels)).isFalse();
+    }
+}
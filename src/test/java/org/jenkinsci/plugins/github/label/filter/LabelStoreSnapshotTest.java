@@ -0,0 +1,34 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LabelStoreSnapshotTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        LabelStore store = new LabelStore(10, 60);
+        PullRequestKey key = new PullRequestKey("github.com", "owner1", "repo1", 12);
+        store.put(key, Arrays.asList("label1", "label2"), new Date(1000));
+        store.put(new PullRequestKey("github.com", "owner1", "repo1", 13), Collections.emptyList(), null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(LabelStoreSnapshot.write(store, out)).isEqualTo(2);
+
+        LabelStore restored = new LabelStore(10, 60);
+        assertThat(LabelStoreSnapshot.read(restored, new ByteArrayInputStream(out.toByteArray()))).isEqualTo(2);
+        assertThat(restored.getIfPresent(key)).containsExactlyInAnyOrder("label1", "label2");
+        assertThat(restored.getIfPresent(new PullRequestKey("github.com", "owner1", "repo1", 13))).isEmpty();
+
+        // restored labels keep the update time they were read at
+        assertThat(restored.update(key, Collections.singletonList("label3"), new Date(500))).isFalse();
+        assertThat(restored.getIfPresent(key)).containsExactlyInAnyOrder("label1", "label2");
+    }
+}
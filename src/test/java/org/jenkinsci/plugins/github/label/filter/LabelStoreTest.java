@@ -0,0 +1,66 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LabelStoreTest {
+
+    private final PullRequestKey key = new PullRequestKey("github.com", "Owner1", "Repo1", 12);
+
+    @Test
+    public void testKeysIgnoreCase() {
+        LabelStore store = new LabelStore(10, 60);
+        store.put(key, Arrays.asList("label1", "label2"), new Date(1000));
+        assertThat(store.getIfPresent(new PullRequestKey("GitHub.com", "owner1", "repo1", 12)))
+                .containsExactlyInAnyOrder("label1", "label2");
+        assertThat(store.getIfPresent(new PullRequestKey("github.com", "owner1", "repo1", 13))).isNull();
+    }
+
+    @Test
+    public void testUpdateKeepsNewerLabels() {
+        LabelStore store = new LabelStore(10, 60);
+        assertThat(store.update(key, Collections.singletonList("label1"), new Date(2000))).isTrue();
+        assertThat(store.update(key, Collections.singletonList("label2"), new Date(1000))).isFalse();
+        assertThat(store.getIfPresent(key)).containsExactly("label1");
+        assertThat(store.update(key, Collections.singletonList("label3"), new Date(2000))).isTrue();
+        assertThat(store.getIfPresent(key)).containsExactly("label3");
+    }
+
+    @Test
+    public void testLastKnownLabelsExpire() {
+        LabelStore store = new LabelStore(10, 60);
+        store.restore(key, Collections.singletonList("label1"), 1000, System.currentTimeMillis() - 60000);
+        assertThat(store.getLastKnown(key, 120000)).containsExactly("label1");
+        assertThat(store.getLastKnown(key, 30000)).isNull();
+    }
+
+    @Test
+    public void testBoundedSize() throws Exception {
+        LabelStore store = new LabelStore(10, 60);
+        for (int number = 1; number <= 100; number++) {
+            store.put(new PullRequestKey("github.com", "owner1", "repo1", number), Collections.singletonList("label1"), new Date());
+        }
+        assertThat(store.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    public void testInvalidateLabel() {
+        LabelStore store = new LabelStore(10, 60);
+        store.put(key, Arrays.asList("label1", "label2"), new Date(1000));
+        store.put(new PullRequestKey("github.com", "owner1", "repo1", 13), Collections.singletonList("label2"), new Date(1000));
+        store.put(new PullRequestKey("github.com", "owner1", "repo2", 12), Collections.singletonList("label1"), new Date(1000));
+
+        assertThat(store.invalidateLabel("github.com", "owner1", "repo1", "label1")).containsExactly(12);
+        assertThat(store.getIfPresent(key)).isNull();
+        assertThat(store.getIfPresent(new PullRequestKey("github.com", "owner1", "repo1", 13))).containsExactly("label2");
+        assertThat(store.getIfPresent(new PullRequestKey("github.com", "owner1", "repo2", 12))).containsExactly("label1");
+
+        assertThat(store.invalidateLabel("github.com", "owner1", "repo1", "label2")).containsExactly(13);
+        assertThat(store.invalidateLabel("github.com", "owner1", "repo1", "unknown")).isEmpty();
+    }
+}
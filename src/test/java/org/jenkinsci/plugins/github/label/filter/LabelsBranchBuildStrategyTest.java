@@ -0,0 +1,120 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GitHub;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LabelsBranchBuildStrategyTest {
+
+    private final GitHubSCMSource source = mock(GitHubSCMSource.class);
+
+    private final PullRequestSCMHead head = mock(PullRequestSCMHead.class);
+
+    private final SCMRevision revision = mock(SCMRevision.class);
+
+    @Before
+    public void setUp() {
+        LabelStore.get().clear();
+        when(source.getRepoOwner()).thenReturn("strategy");
+        when(source.getRepository()).thenReturn("repo1");
+        when(head.getNumber()).thenReturn(5);
+        LabelStore.get().put(new PullRequestKey("github.com", "strategy", "repo1", 5), Arrays.asList("label1", "label2"), new Date());
+    }
+
+    @After
+    public void tearDown() {
+        LabelStore.get().clear();
+    }
+
+    @Test
+    public void testRules() {
+        assertThat(new LabelsBranchBuildStrategy("label1,label3", LabelsBranchBuildStrategy.Rule.MATCH_ANY)
+                .isAutomaticBuild(source, head, revision, null)).isTrue();
+        assertThat(new LabelsBranchBuildStrategy("label1,label3", LabelsBranchBuildStrategy.Rule.MATCH_ALL)
+                .isAutomaticBuild(source, head, revision, null)).isFalse();
+        assertThat(new LabelsBranchBuildStrategy("label2", LabelsBranchBuildStrategy.Rule.BLACKLIST)
+                .isAutomaticBuild(source, head, revision, null)).isFalse();
+    }
+
+    @Test
+    public void testReadsUnknownPullRequests() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v3/repos/strategy/repo1", exchange -> respond(exchange,
+                "{\"name\":\"repo1\",\"full_name\":\"strategy/repo1\",\"owner\":{\"login\":\"strategy\"}}"));
+        server.createContext("/api/v3/repos/strategy/repo1/issues/7", exchange -> {
+            reads.incrementAndGet();
+            respond(exchange, "{\"number\":7,\"state\":\"open\",\"updated_at\":\"2019-05-15T15:20:33Z\","
+                    + "\"labels\":[{\"name\":\"label3\"}],\"pull_request\":{}}");
+        });
+        server.createContext("/api/v3/repos/strategy/repo1/issues/6", exchange -> respond(exchange,
+                "{\"number\":6,\"state\":\"closed\",\"updated_at\":\"2019-05-15T15:20:33Z\",\"labels\":[],\"pull_request\":{}}"));
+        server.start();
+        try {
+            GitHubLabelsClient client = new GitHubLabelsClient(GitHub.connectToEnterpriseAnonymously(
+                    "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v3"));
+            when(head.getNumber()).thenReturn(7);
+            assertThat(strategy("label1", client).isAutomaticBuild(source, head, revision, null)).isFalse();
+            assertThat(strategy("label3", client).isAutomaticBuild(source, head, revision, null)).isTrue();
+            assertThat(reads.get()).isEqualTo(1);
+
+            // stale labels are read again
+            LabelStore.get().invalidate(new PullRequestKey("github.com", "strategy", "repo1", 7));
+            LabelStore.get().restore(new PullRequestKey("github.com", "strategy", "repo1", 7), Arrays.asList("label1"),
+                    0, System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+            assertThat(strategy("label3", client).isAutomaticBuild(source, head, revision, null)).isTrue();
+            assertThat(reads.get()).isEqualTo(2);
+
+            // not open
+            when(head.getNumber()).thenReturn(6);
+            assertThat(strategy("label3", client).isAutomaticBuild(source, head, revision, null)).isTrue();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static LabelsBranchBuildStrategy strategy(String labels, GitHubLabelsClient client) {
+        return new LabelsBranchBuildStrategy(labels, LabelsBranchBuildStrategy.Rule.MATCH_ANY) {
+            @Override
+            GitHubLabelsClient createClient(GitHubSCMSource source) {
+                return client;
+            }
+        };
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        exchange.close();
+    }
+
+    @Test
+    public void testBuildsBranches() {
+        LabelsBranchBuildStrategy strategy = new LabelsBranchBuildStrategy("label3", LabelsBranchBuildStrategy.Rule.MATCH_ANY);
+        assertThat(strategy.isAutomaticBuild(source, new SCMHead("master"), revision, null)).isTrue();
+    }
+}
@@ -0,0 +1,93 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import org.junit.Test;
+import org.kohsuke.github.HttpException;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LabelsCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final LabelsCircuitBreaker.Call<List<String>> failing = () -> {
+        calls.incrementAndGet();
+        throw new IOException("HTTP 502");
+    };
+
+    private final LabelsCircuitBreaker.Call<List<String>> succeeding = () -> {
+        calls.incrementAndGet();
+        return Collections.singletonList("label1");
+    };
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        LabelsCircuitBreaker breaker = new LabelsCircuitBreaker(3, 1000, now::get);
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> breaker.call(failing)).hasMessage("HTTP 502");
+        }
+        assertThat(breaker.isOpen()).isTrue();
+
+        assertThatThrownBy(() -> breaker.call(succeeding)).isInstanceOf(LabelsCircuitBreaker.OpenException.class);
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testSuccessResetsFailures() throws IOException {
+        LabelsCircuitBreaker breaker = new LabelsCircuitBreaker(3, 1000, now::get);
+        assertThatThrownBy(() -> breaker.call(failing)).hasMessage("HTTP 502");
+        assertThatThrownBy(() -> breaker.call(failing)).hasMessage("HTTP 502");
+        assertThat(breaker.call(succeeding)).containsExactly("label1");
+        assertThatThrownBy(() -> breaker.call(failing)).hasMessage("HTTP 502");
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    public void testSingleTrialAfterOpenPeriod() throws IOException {
+        LabelsCircuitBreaker breaker = new LabelsCircuitBreaker(1, 1000, now::get);
+        assertThatThrownBy(() -> breaker.call(failing)).hasMessage("HTTP 502");
+
+        now.set(1000);
+        assertThatThrownBy(() -> breaker.call(failing)).hasMessage("HTTP 502");
+        assertThatThrownBy(() -> breaker.call(succeeding)).isInstanceOf(LabelsCircuitBreaker.OpenException.class);
+
+        now.set(2000);
+        assertThat(breaker.call(succeeding)).containsExactly("label1");
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    public void testOnlyUnavailabilityOpens() {
+        LabelsCircuitBreaker breaker = new LabelsCircuitBreaker(1, 1000, now::get);
+        for (IOException failure : Arrays.asList(new HttpException("Not Found", 404, "Not Found", "url"),
+                new HttpException("Resource not accessible by integration", 403, "Forbidden", "url"),
+                new HttpException("Validation Failed", 422, "Unprocessable Entity", "url"),
+                new FileNotFoundException("HTTP 404"))) {
+            assertThatThrownBy(() -> breaker.call(() -> {
+                throw failure;
+            })).isSameAs(failure);
+            assertThat(breaker.isOpen()).isFalse();
+        }
+        for (IOException failure : Arrays.asList(new HttpException("Service Unavailable", 503, "Service Unavailable", "url"),
+                new HttpException("Too Many Requests", 429, "Too Many Requests", "url"),
+                new HttpException("API rate limit exceeded for user", 403, "Forbidden", "url"),
+                new SocketTimeoutException("Read timed out"))) {
+            assertThat(LabelsCircuitBreaker.isUnavailable(failure)).as(failure.getMessage()).isTrue();
+        }
+        assertThatThrownBy(() -> breaker.call(() -> {
+            throw new HttpException("API rate limit exceeded for user", 403, "Forbidden", "url");
+        })).hasMessage("API rate limit exceeded for user");
+        assertThat(breaker.isOpen()).isTrue();
+    }
+}
@@ -0,0 +1,73 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LabelsFilterSimulationTest {
+
+    @Before
+    public void setUp() {
+        LabelStore.get().clear();
+    }
+
+    @After
+    public void tearDown() {
+        LabelStore.get().clear();
+    }
+
+    @Test
+    public void testEvaluatesStoredLabels() {
+        LabelStore store = LabelStore.get();
+        store.put(new PullRequestKey("github.com", "simulation", "repo1", 1), Arrays.asList("label1", "label2"), new Date());
+        store.put(new PullRequestKey("github.com", "simulation", "repo1", 2), Collections.singletonList("label2"), new Date());
+        store.put(new PullRequestKey("github.com", "simulation", "repo1", 3), Collections.emptyList(), new Date());
+        store.put(new PullRequestKey("github.com", "simulation", "repo2", 4), Collections.singletonList("label1"), new Date());
+
+        GitHubSCMSource source = mock(GitHubSCMSource.class);
+        when(source.getApiUri()).thenReturn("https://api.github.com");
+        when(source.getRepoOwner()).thenReturn("Simulation");
+        when(source.getRepository()).thenReturn("repo1");
+
+        LabelsFilterSimulation simulation = LabelsFilterSimulation.run(
+                new PullRequestLabelsMatchAnyFilterTrait("label1"), Collections.singletonList(source));
+
+        assertThat(simulation.getIncludedCount()).isEqualTo(1);
+        assertThat(simulation.getExcludedCount()).isEqualTo(2);
+        assertThat(simulation.toJSON().getJSONArray("repositories").getJSONObject(0).getJSONArray("excluded"))
+                .containsExactly(2, 3);
+        assertThat(simulation.getSummary()).startsWith("Simulation/repo1: includes [1], excludes [2, 3].");
+    }
+
+    @Test
+    public void testDoesNotInternSimulatedLabels() {
+        LabelStore.get().put(new PullRequestKey("github.com", "simulation", "repo3", 1), Collections.singletonList("label1"), new Date());
+        GitHubSCMSource source = mock(GitHubSCMSource.class);
+        when(source.getRepoOwner()).thenReturn("simulation");
+        when(source.getRepository()).thenReturn("repo3");
+
+        String simulated = "simulated-" + System.nanoTime();
+
+        LabelsFilterSimulation simulation = LabelsFilterSimulation.run(
+                new PullRequestLabelsMatchAllFilterTrait("label1," + simulated), Collections.singletonList(source));
+
+        assertThat(simulation.getExcludedCount()).isEqualTo(1);
+        assertThat(LabelDictionary.get().idOf(simulated)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testWebHost() {
+        assertThat(PullRequestKey.hostOf(null)).isEqualTo("github.com");
+        assertThat(PullRequestKey.hostOf("https://api.github.com")).isEqualTo("github.com");
+        assertThat(PullRequestKey.hostOf("https://ghe.example.com/api/v3")).isEqualTo("ghe.example.com");
+    }
+}
@@ -0,0 +1,98 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedLabelStorageTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final PullRequestKey key = new PullRequestKey("github.com", "owner1", "repo1", 12);
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File directory = folder.newFolder();
+        LabelStore store = new LabelStore(new MappedLabelStorage(directory));
+        assertThat(store.getIfPresent(key)).isNull();
+        store.put(key, Arrays.asList("label1", "label2"), new Date(1000));
+        store.put(new PullRequestKey("github.com", "owner1", "repo1", 5000), Arrays.asList("label3"), new Date(1000));
+        store.put(key, Arrays.asList("label2"), new Date(2000));
+        assertThat(store.size()).isEqualTo(2);
+
+        // the entries and their update times survive a restart
+        LabelStore reopened = new LabelStore(new MappedLabelStorage(directory));
+        assertThat(reopened.size()).isEqualTo(2);
+        assertThat(reopened.snapshot("github.com", "owner1", "repo1")).containsOnlyKeys(12, 5000);
+        assertThat(reopened.getIfPresent(key)).containsExactly("label2");
+        assertThat(reopened.update(key, Arrays.asList("label3"), new Date(1000))).isFalse();
+
+        reopened.invalidate(key);
+        assertThat(reopened.getIfPresent(key)).isNull();
+        assertThat(reopened.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFileSizeFollowsStoredPullRequests() throws Exception {
+        File directory = folder.newFolder();
+        LabelStore store = new LabelStore(new MappedLabelStorage(directory));
+        PullRequestKey large = new PullRequestKey("github.com", "owner1", "repo1", 1_000_000);
+        store.put(large, Arrays.asList("label1"), new Date(1000));
+        for (int number = 0; number < 100; number++) {
+            store.put(new PullRequestKey("github.com", "owner1", "repo1", number), Arrays.asList("label2"), new Date(1000));
+        }
+        File file = new File(directory, "github.com~owner1~repo1.idx");
+        assertThat(file.length()).isEqualTo(16 + 128L * MappedLabelStorage.RECORD_SIZE);
+
+        // freed records are reused
+        store.invalidate(large);
+        store.put(new PullRequestKey("github.com", "owner1", "repo1", 2_000_000), Arrays.asList("label3"), new Date(1000));
+        assertThat(file.length()).isEqualTo(16 + 128L * MappedLabelStorage.RECORD_SIZE);
+        assertThat(store.getIfPresent(large)).isNull();
+
+        LabelStore reopened = new LabelStore(new MappedLabelStorage(directory));
+        assertThat(reopened.size()).isEqualTo(101);
+        assertThat(reopened.getIfPresent(new PullRequestKey("github.com", "owner1", "repo1", 2_000_000))).containsExactly("label3");
+    }
+
+    @Test
+    public void testTooManyLabels() throws Exception {
+        LabelStore store = new LabelStore(new MappedLabelStorage(folder.newFolder()));
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i <= MappedLabelStorage.MAX_LABELS; i++) {
+            labels.add("label" + i);
+        }
+        store.put(key, labels, new Date(1000));
+        assertThat(store.getIfPresent(key)).isNull();
+    }
+
+    @Test
+    public void testIncompleteRecordIsCleared() throws Exception {
+        File directory = folder.newFolder();
+        LabelStore store = new LabelStore(new MappedLabelStorage(directory));
+        store.put(key, Arrays.asList("label1"), new Date(1000));
+        store.put(new PullRequestKey("github.com", "owner1", "repo1", 13), Arrays.asList("label2"), new Date(1000));
+
+        // a crash while writing the first record, of pull request 12, leaves an odd sequence
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "github.com~owner1~repo1.idx"), "rw")) {
+            file.seek(16);
+            file.writeInt(7);
+        }
+        LabelStore reopened = new LabelStore(new MappedLabelStorage(directory));
+        assertThat(reopened.getIfPresent(key)).isNull();
+        assertThat(reopened.getIfPresent(new PullRequestKey("github.com", "owner1", "repo1", 13))).containsExactly("label2");
+        assertThat(reopened.size()).isEqualTo(1);
+        reopened.put(key, Arrays.asList("label3"), new Date(2000));
+        assertThat(reopened.getIfPresent(key)).containsExactly("label3");
+    }
+}
@@ -0,0 +1,92 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import hudson.model.TaskListener;
+import jenkins.scm.api.trait.SCMHeadFilter;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSourceRequest;
+import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GHCommitPointer;
+import org.kohsuke.github.GHLabel;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GHUser;
+
+import java.io.PrintStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PullRequestAttributesFilterTraitTest {
+
+    private final GitHubSCMSourceRequest request = mock(GitHubSCMSourceRequest.class);
+
+    private final GHPullRequest pullRequest = mock(GHPullRequest.class);
+
+    private final PullRequestSCMHead head = mock(PullRequestSCMHead.class);
+
+    @Before
+    public void setUp() throws Exception {
+        TaskListener listener = mock(TaskListener.class);
+        when(listener.getLogger()).thenReturn(mock(PrintStream.class));
+        when(request.listener()).thenReturn(listener);
+        when(request.getPullRequests()).thenReturn(Arrays.asList(pullRequest));
+        when(head.getNumber()).thenReturn(7);
+        when(pullRequest.getNumber()).thenReturn(7);
+        when(pullRequest.getHtmlUrl()).thenReturn(new URL("https://github.com/attributes/repo1/pull/7"));
+        GHCommitPointer base = mock(GHCommitPointer.class);
+        when(base.getRef()).thenReturn("release/1.0");
+        when(pullRequest.getBase()).thenReturn(base);
+        GHUser user = mock(GHUser.class);
+        when(user.getLogin()).thenReturn("Octocat");
+        when(pullRequest.getUser()).thenReturn(user);
+        when(pullRequest.getCreatedAt()).thenReturn(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(10)));
+        GHLabel label = mock(GHLabel.class);
+        when(label.getName()).thenReturn("label1");
+        when(pullRequest.getLabels()).thenReturn(Arrays.asList(label));
+    }
+
+    @Test
+    public void testAttributes() throws Exception {
+        PullRequestAttributesFilterTrait trait = new PullRequestAttributesFilterTrait("label1");
+        trait.setBaseBranches("main, release/.*");
+        trait.setAuthors("octocat,hubot");
+        trait.setMaxAgeDays(30);
+        assertThat(trait.getScmHeadFilter().isExcluded(request, head)).isFalse();
+
+        trait.setLabelsRule(LabelsBranchBuildStrategy.Rule.BLACKLIST);
+        assertThat(trait.getScmHeadFilter().isExcluded(request, head)).isTrue();
+        trait.setLabelsRule(LabelsBranchBuildStrategy.Rule.MATCH_ALL);
+        assertThat(trait.getScmHeadFilter().isExcluded(request, head)).isFalse();
+
+        trait.setMaxAgeDays(5);
+        assertThat(trait.getScmHeadFilter().isExcluded(request, head)).isTrue();
+    }
+
+    @Test
+    public void testLabelsAreNotLookedUpWhenExcludedByOtherAttributes() throws Exception {
+        PullRequestAttributesFilterTrait trait = new PullRequestAttributesFilterTrait("label1");
+        trait.setBaseBranches("main");
+        SCMHeadFilter filter = trait.getScmHeadFilter();
+        assertThat(filter.isExcluded(request, head)).isTrue();
+
+        trait.setBaseBranches(null);
+        trait.setAuthors("hubot");
+        assertThat(filter.isExcluded(request, head)).isTrue();
+        verify(pullRequest, never()).getLabels();
+    }
+
+    @Test
+    public void testWithoutLabels() throws Exception {
+        PullRequestAttributesFilterTrait trait = new PullRequestAttributesFilterTrait("");
+        assertThat(trait.getScmHeadFilter().isExcluded(request, head)).isFalse();
+        assertThat(trait.isExcludedBy(Arrays.asList("label2"))).isFalse();
+        verify(pullRequest, never()).getLabels();
+    }
+}
@@ -2,13 +2,18 @@ package org.jenkinsci.plugins.github.label.filter;
 
 import com.cloudbees.jenkins.GitHubRepositoryName;
 import hudson.model.Cause;
+import hudson.model.Executor;
 import hudson.model.Item;
+import hudson.model.Result;
+import jenkins.model.CauseOfInterruption;
 import jenkins.scm.api.SCMSource;
 import jenkins.scm.api.trait.SCMSourceTrait;
 import org.apache.commons.io.IOUtils;
 import org.jenkinsci.plugins.github.extension.GHSubscriberEvent;
 import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
 import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
+import org.kohsuke.github.GHEvent;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -23,11 +28,14 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
@@ -38,7 +46,8 @@ public class PullRequestGHEventSubscriberTest {
 	private GHSubscriberEvent ghSubscriberEvent;
 
 	@Spy
-	PullRequestGHEventSubscriber subscriber = new PullRequestGHEventSubscriber();
+	PullRequestGHEventSubscriber subscriber = new PullRequestGHEventSubscriber(new IndexingDispatcher(), new DeliveryDeduplicator(),
+			new ExcludedBuildsAborter(), new LabelEventLanes(Runnable::run));
 
 	@Mock
 	private GitHubRepositoryName gitHubRepositoryName;
@@ -58,6 +67,7 @@ public class PullRequestGHEventSubscriberTest {
 
 	@Before
 	public void setUp() {
+		LabelStore.get().clear();
 		when(gitHubRepositoryName.getUserName()).thenReturn("user1");
 		when(gitHubRepositoryName.getRepositoryName()).thenReturn("repo1");
 		Map triggers = new HashMap();
@@ -69,6 +79,11 @@ public class PullRequestGHEventSubscriberTest {
 		when(gitHubSCMSource.getTraits()).thenReturn(Arrays.asList(trait));
 	}
 
+	@After
+	public void tearDown() {
+		LabelStore.get().clear();
+	}
+
 
 	@Test
 	public void testIsApplicable() {
@@ -92,7 +107,7 @@ public class PullRequestGHEventSubscriberTest {
 		String text = IOUtils.toString(inputStream, StandardCharsets.UTF_8.name());
 		when(ghSubscriberEvent.getPayload()).thenReturn(text);
 		subscriber.onEvent(ghSubscriberEvent);
-		Mockito.verify(subscriber, times(1)).process(any(), any());
+		Mockito.verify(subscriber, times(1)).process(any(), any(), any(), any());
 	}
 
 	@Test
@@ -101,9 +116,106 @@ public class PullRequestGHEventSubscriberTest {
 		String text = IOUtils.toString(inputStream, StandardCharsets.UTF_8.name());
 		when(ghSubscriberEvent.getPayload()).thenReturn(text);
 		subscriber.onEvent(ghSubscriberEvent);
-		Mockito.verify(subscriber, times(1)).process(any(), any());
+		Mockito.verify(subscriber, times(1)).process(any(), any(), any(), any());
+	}
+
+
+	@Test
+	public void onLabeledEventWithKnownLabelsAborts() throws IOException {
+		InputStream inputStream = PullRequestGHEventSubscriberTest.class.getResourceAsStream("pullRequestEventLabeled.json");
+		String text = IOUtils.toString(inputStream, StandardCharsets.UTF_8.name());
+		when(ghSubscriberEvent.getPayload()).thenReturn(text);
+		LabelStore.get().put(new PullRequestKey("github.com", "Codertocat", "Hello-World", 2), Arrays.asList("label1"), new Date(0));
+		subscriber.onEvent(ghSubscriberEvent);
+		Mockito.verify(subscriber, times(1)).abortExcludedBuilds(any(), any(), eq(2), any(), any());
+	}
+
+	@Test
+	public void onLabeledEventWithUnknownLabelsDoesNotAbort() throws IOException {
+		InputStream inputStream = PullRequestGHEventSubscriberTest.class.getResourceAsStream("pullRequestEventLabeled.json");
+		String text = IOUtils.toString(inputStream, StandardCharsets.UTF_8.name());
+		when(ghSubscriberEvent.getPayload()).thenReturn(text);
+		subscriber.onEvent(ghSubscriberEvent);
+		Mockito.verify(subscriber, times(1)).process(any(), any(), any(), any());
+		Mockito.verify(subscriber, times(0)).abortExcludedBuilds(any(), any(), anyInt(), any(), any());
+	}
+
+	@Test
+	public void onLabeledEventDoesNotStoreLabels() throws IOException {
+		InputStream inputStream = PullRequestGHEventSubscriberTest.class.getResourceAsStream("pullRequestEventLabeled.json");
+		String text = IOUtils.toString(inputStream, StandardCharsets.UTF_8.name());
+		when(ghSubscriberEvent.getPayload()).thenReturn(text);
+		PullRequestKey key = new PullRequestKey("github.com", "Codertocat", "Hello-World", 2);
+		LabelStore.get().put(key, Arrays.asList("label1"), new Date(0));
+		subscriber.onEvent(ghSubscriberEvent);
+		Mockito.verify(subscriber, times(1)).process(any(), any(), any(), any());
+		assertThat(LabelStore.get().getIfPresent(key)).containsExactly("label1");
+	}
+
+	@Test
+	public void onLabeledEventDoesNotInternLabels() throws IOException {
+		InputStream inputStream = PullRequestGHEventSubscriberTest.class.getResourceAsStream("pullRequestEventLabeled.json");
+		String text = IOUtils.toString(inputStream, StandardCharsets.UTF_8.name())
+				.replaceFirst("\"labels\": \\[\\s*\\]", "\"labels\": [{\"id\": 1, \"name\": \"webhook-only-label\"}]");
+		when(ghSubscriberEvent.getPayload()).thenReturn(text);
+		LabelStore.get().put(new PullRequestKey("github.com", "Codertocat", "Hello-World", 2), Arrays.asList("label1"), new Date(0));
+		int size = LabelDictionary.get().size();
+		subscriber.onEvent(ghSubscriberEvent);
+		Mockito.verify(subscriber, times(1)).process(any(), any(), any(), any());
+		assertThat(LabelDictionary.get().size()).isEqualTo(size);
+		assertThat(LabelDictionary.get().idOf("webhook-only-label")).isEqualTo(-1);
+	}
+
+	@Test
+	public void onOpenedEventIsIgnored() throws IOException {
+		InputStream inputStream = PullRequestGHEventSubscriberTest.class.getResourceAsStream("pullRequestEventLabeled.json");
+		String text = IOUtils.toString(inputStream, StandardCharsets.UTF_8.name())
+				.replace("\"action\": \"labeled\"", "\"action\": \"opened\"")
+				.replaceFirst("\"labels\": \\[\\s*\\]", "\"labels\": [{\"id\": 1, \"name\": \"label1\"}]");
+		when(ghSubscriberEvent.getPayload()).thenReturn(text);
+		subscriber.onEvent(ghSubscriberEvent);
+		Mockito.verify(subscriber, times(0)).process(any(), any(), any(), any());
+		assertThat(LabelStore.get().getIfPresent(new PullRequestKey("github.com", "Codertocat", "Hello-World", 2))).isNull();
+	}
+
+	@Test
+	public void onLabelRenamedEvent() throws IOException {
+		InputStream inputStream = PullRequestGHEventSubscriberTest.class.getResourceAsStream("labelEventEdited.json");
+		String text = IOUtils.toString(inputStream, StandardCharsets.UTF_8.name());
+		when(ghSubscriberEvent.getPayload()).thenReturn(text);
+		when(ghSubscriberEvent.getGHEvent()).thenReturn(GHEvent.LABEL);
+		PullRequestKey key = new PullRequestKey("github.com", "Codertocat", "Hello-World", 7);
+		LabelStore.get().put(key, Arrays.asList("bug", "label1"), new Date());
+		subscriber.onEvent(ghSubscriberEvent);
+		Mockito.verify(subscriber, times(1)).processLabelChange(any(), any(), eq("bug"), eq("defect"), eq(Collections.singleton(7)));
+		Mockito.verify(subscriber, times(0)).process(any(), any(), any(), any());
+		assertThat(LabelStore.get().getIfPresent(key)).isNull();
+	}
+
+	@Test
+	public void processLabelChange() {
+		when(((LabelsFilter) trait).refersTo("bug")).thenReturn(true);
+		subscriber.processLabelChange(gitHubRepositoryName, Arrays.asList(scmSourceOwner, scmSourceOwner), "bug", "defect", Collections.singleton(7));
+		Mockito.verify(scmSourceOwner, times(1)).scheduleBuild(LabelsChangedCause.INSTANCE);
 	}
 
+	@Test
+	public void processLabelChangeSkipsUnrelatedProjects() {
+		subscriber.processLabelChange(gitHubRepositoryName, Arrays.asList(scmSourceOwner), "bug", null, Collections.singleton(7));
+		Mockito.verify(scmSourceOwner, times(0)).scheduleBuild(any());
+	}
+
+	@Test
+	public void onDuplicateDelivery() throws IOException {
+		InputStream inputStream = PullRequestGHEventSubscriberTest.class.getResourceAsStream("pullRequestEventLabeled.json");
+		String text = IOUtils.toString(inputStream, StandardCharsets.UTF_8.name());
+		when(ghSubscriberEvent.getPayload()).thenReturn(text);
+		Mockito.doReturn("72d3162e-cc78-11e3-81ab-4c9367dc0958").when(subscriber).getDeliveryId();
+		subscriber.onEvent(ghSubscriberEvent);
+		subscriber.onEvent(ghSubscriberEvent);
+		Mockito.verify(subscriber, times(1)).process(any(), any(), any(), any());
+		assertThat(subscriber.getDuplicateDeliveries()).isEqualTo(1);
+	}
 
 	@Test
 	public void onBadEvent() throws IOException {
@@ -111,15 +223,109 @@ public class PullRequestGHEventSubscriberTest {
 		String text = IOUtils.toString(inputStream, StandardCharsets.UTF_8.name());
 		when(ghSubscriberEvent.getPayload()).thenReturn(text);
 		subscriber.onEvent(ghSubscriberEvent);
-		Mockito.verify(subscriber, times(0)).process(any(), any());
+		Mockito.verify(subscriber, times(0)).process(any(), any(), any(), any());
 	}
 
 
 	@Test
 	public void process() {
-		subscriber.process(gitHubRepositoryName, Arrays.asList(scmSourceOwner));
+		subscriber.process(gitHubRepositoryName, Arrays.asList(scmSourceOwner), Collections.singleton(2));
 		ArgumentCaptor<Cause> argument = ArgumentCaptor.forClass(Cause.class);
 		Mockito.verify(scmSourceOwner, times(1)).scheduleBuild(argument.capture());
 		assertThat(argument.getValue().getShortDescription()).isEqualTo("Triggered by labels change");
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void processSchedulesEachProjectOnce() {
+		subscriber.process(gitHubRepositoryName, Arrays.asList(scmSourceOwner, scmSourceOwner), Collections.singleton(2));
+		Mockito.verify(scmSourceOwner, times(1)).scheduleBuild(LabelsChangedCause.INSTANCE);
+	}
+
+	@Test
+	public void processSkipsQueuedProjects() {
+		IndexingDispatcher dispatcher = Mockito.spy(new IndexingDispatcher());
+		Mockito.doReturn(true).when(dispatcher).isQueued(scmSourceOwner);
+		new PullRequestGHEventSubscriber(dispatcher).process(gitHubRepositoryName, Arrays.asList(scmSourceOwner), Collections.singleton(2));
+		Mockito.verify(scmSourceOwner, times(0)).scheduleBuild(any(Cause.class));
+	}
+
+	@Test
+	public void processDropsEventsDuringRunningIndexing() {
+		when(trigger.getRunningScanPolicy()).thenReturn(LabeledFilterWebHookTrigger.RunningScanPolicy.MERGE);
+		IndexingDispatcher dispatcher = Mockito.spy(new IndexingDispatcher());
+		Mockito.doReturn(mock(Executor.class)).when(dispatcher).getRunningIndexing(scmSourceOwner);
+		new PullRequestGHEventSubscriber(dispatcher).process(gitHubRepositoryName, Arrays.asList(scmSourceOwner), Collections.singleton(2));
+		Mockito.verify(scmSourceOwner, times(0)).scheduleBuild(any(Cause.class));
+	}
+
+	@Test
+	public void processCancelsStaleIndexing() {
+		when(trigger.getRunningScanPolicy()).thenReturn(LabeledFilterWebHookTrigger.RunningScanPolicy.CANCEL_STALE);
+		when(trigger.getStaleScanSeconds()).thenReturn(60);
+		Executor running = mock(Executor.class);
+		when(running.getElapsedTime()).thenReturn(120000L);
+		IndexingDispatcher dispatcher = Mockito.spy(new IndexingDispatcher());
+		Mockito.doReturn(running).when(dispatcher).getRunningIndexing(scmSourceOwner);
+		new PullRequestGHEventSubscriber(dispatcher).process(gitHubRepositoryName, Arrays.asList(scmSourceOwner), Collections.singleton(2));
+		Mockito.verify(running, times(1)).interrupt(any(Result.class), any(CauseOfInterruption.class));
+		Mockito.verify(scmSourceOwner, times(1)).scheduleBuild(LabelsChangedCause.INSTANCE);
+	}
+
+	@Test
+	public void abortsBuildsOfNewlyExcludedPullRequest() throws Exception {
+		when(trigger.isAbortExcludedBuilds()).thenReturn(true);
+		when(((LabelsFilter) trait).isExcludedBy(Arrays.asList("do-not-build"))).thenReturn(true);
+		ExcludedBuildsAborter aborter = mock(ExcludedBuildsAborter.class);
+		when(aborter.readLabels(gitHubSCMSource, 7)).thenReturn(Arrays.asList("do-not-build"));
+		PullRequestGHEventSubscriber subscriber = new PullRequestGHEventSubscriber(new IndexingDispatcher(), new DeliveryDeduplicator(), aborter);
+
+		subscriber.abortExcludedBuilds(gitHubRepositoryName, Arrays.asList(scmSourceOwner), 7, Collections.emptyList(), Arrays.asList("do-not-build"));
+		Mockito.verify(aborter, times(1)).abort(scmSourceOwner, 7, Arrays.asList("do-not-build"));
+
+		// already excluded before the event
+		subscriber.abortExcludedBuilds(gitHubRepositoryName, Arrays.asList(scmSourceOwner), 7, Arrays.asList("do-not-build"), Arrays.asList("do-not-build"));
+		// still included
+		subscriber.abortExcludedBuilds(gitHubRepositoryName, Arrays.asList(scmSourceOwner), 7, Collections.emptyList(), Arrays.asList("label1"));
+		Mockito.verify(aborter, times(1)).abort(any(), anyInt(), any());
+	}
+
+	@Test
+	public void doesNotAbortBuildsOnLabelsTheApiDoesNotConfirm() throws Exception {
+		when(trigger.isAbortExcludedBuilds()).thenReturn(true);
+		when(((LabelsFilter) trait).isExcludedBy(Arrays.asList("do-not-build"))).thenReturn(true);
+		ExcludedBuildsAborter aborter = mock(ExcludedBuildsAborter.class);
+		PullRequestGHEventSubscriber subscriber = new PullRequestGHEventSubscriber(new IndexingDispatcher(), new DeliveryDeduplicator(), aborter);
+
+		when(aborter.readLabels(gitHubSCMSource, 7)).thenReturn(Arrays.asList("label1"));
+		subscriber.abortExcludedBuilds(gitHubRepositoryName, Arrays.asList(scmSourceOwner), 7, Collections.emptyList(), Arrays.asList("do-not-build"));
+		// closed
+		when(aborter.readLabels(gitHubSCMSource, 7)).thenReturn(null);
+		subscriber.abortExcludedBuilds(gitHubRepositoryName, Arrays.asList(scmSourceOwner), 7, Collections.emptyList(), Arrays.asList("do-not-build"));
+		when(aborter.readLabels(gitHubSCMSource, 7)).thenThrow(new IOException("unavailable"));
+		subscriber.abortExcludedBuilds(gitHubRepositoryName, Arrays.asList(scmSourceOwner), 7, Collections.emptyList(), Arrays.asList("do-not-build"));
+		Mockito.verify(aborter, times(0)).abort(any(), anyInt(), any());
+	}
+
+	@Test
+	public void doesNotAbortBuildsWithoutOptIn() {
+		ExcludedBuildsAborter aborter = mock(ExcludedBuildsAborter.class);
+		PullRequestGHEventSubscriber subscriber = new PullRequestGHEventSubscriber(new IndexingDispatcher(), new DeliveryDeduplicator(), aborter);
+		subscriber.abortExcludedBuilds(gitHubRepositoryName, Arrays.asList(scmSourceOwner), 7, Collections.emptyList(), Arrays.asList("do-not-build"));
+		Mockito.verify(aborter, times(0)).abort(any(), anyInt(), any());
+	}
+
+	@Test
+	public void classifiesLabelEvents() {
+		when(((LabelsFilter) trait).isExcludedBy(Arrays.asList("do-not-build"))).thenReturn(true);
+		assertThat(subscriber.classify(gitHubRepositoryName, Arrays.asList(scmSourceOwner), Arrays.asList("do-not-build"), Arrays.asList("label1")))
+				.isEqualTo(LabelEventLanes.Effect.INCLUDED);
+		assertThat(subscriber.classify(gitHubRepositoryName, Arrays.asList(scmSourceOwner), Arrays.asList("label1"), Arrays.asList("do-not-build")))
+				.isEqualTo(LabelEventLanes.Effect.EXCLUDED);
+		assertThat(subscriber.classify(gitHubRepositoryName, Arrays.asList(scmSourceOwner), Arrays.asList("label1"), Arrays.asList("label2")))
+				.isEqualTo(LabelEventLanes.Effect.UNCHANGED);
+		assertThat(subscriber.classify(gitHubRepositoryName, Arrays.asList(scmSourceOwner), null, Arrays.asList("label1")))
+				.isEqualTo(LabelEventLanes.Effect.INCLUDED);
+		assertThat(subscriber.classify(gitHubRepositoryName, Collections.emptyList(), null, Arrays.asList("label1")))
+				.isEqualTo(LabelEventLanes.Effect.UNCHANGED);
+	}
+}
@@ -111,6 +111,19 @@ public class PullRequestLabelsMatchAllFilterTraitTest {
         Mockito.verify(logger, times(0)).format(any(),any());
     }
 
+    @Test
+    public void testMatchNormalized() throws IOException, InterruptedException {
+        when(ghLabel1.getName()).thenReturn("type: Label1");
+        when(ghLabel2.getName()).thenReturn(":construction: label2");
+        when(ghPullRequest.getLabels()).thenReturn(Arrays.asList(ghLabel1, ghLabel2));
+        PullRequestLabelsMatchAllFilterTrait trait = new PullRequestLabelsMatchAllFilterTrait("label1,LABEL2,Label1");
+        trait.setIgnoreCase(true);
+        trait.setStripEmoji(true);
+        trait.setStripPrefix("Type:");
+        assertThat(trait.getLabelsAsList()).containsExactly("label1", "LABEL2");
+        assertThat(trait.getScmHeadFilter().isExcluded(gitHubSCMSourceRequest, pullRequestSCMHead)).isFalse();
+    }
+
     private SCMHeadFilter filter(String s) {
         return new PullRequestLabelsMatchAllFilterTrait(s).getScmHeadFilter();
     }
@@ -20,6 +20,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -110,6 +111,27 @@ public class PullRequestLabelsMatchAnyFilterTraitTest {
         Mockito.verify(logger, times(0)).format(any(),any());
     }
 
+    @Test
+    public void testMatchIgnoringCase() throws IOException, InterruptedException {
+        when(ghPullRequest.getLabels()).thenReturn(Arrays.asList(ghLabel1, ghLabel2));
+        PullRequestLabelsMatchAnyFilterTrait trait = new PullRequestLabelsMatchAnyFilterTrait(" LABEL2 ,label4");
+        assertThat(trait.getScmHeadFilter().isExcluded(gitHubSCMSourceRequest, pullRequestSCMHead)).isTrue();
+        trait.setIgnoreCase(true);
+        assertThat(trait.getScmHeadFilter().isExcluded(gitHubSCMSourceRequest, pullRequestSCMHead)).isFalse();
+    }
+
+    @Test
+    public void testStoredLabelsDoNotOverrideListedLabels() throws IOException, InterruptedException {
+        when(ghPullRequest.getLabels()).thenReturn(Arrays.asList(ghLabel1, ghLabel2));
+        PullRequestKey key = new PullRequestKey("github.com", "own1", "repo1", 1);
+        LabelStore.get().put(key, Collections.singletonList("label3"), new Date(Long.MAX_VALUE / 2));
+        try {
+            assertThat(filter("label3").isExcluded(gitHubSCMSourceRequest, pullRequestSCMHead)).isTrue();
+        } finally {
+            LabelStore.get().invalidate(key);
+        }
+    }
+
     private SCMHeadFilter filter(String s) {
         return new PullRequestLabelsMatchAnyFilterTrait(s).getScmHeadFilter();
     }
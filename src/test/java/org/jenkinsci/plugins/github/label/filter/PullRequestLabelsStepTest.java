@@ -0,0 +1,53 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import jenkins.scm.api.SCMHead;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PullRequestLabelsStepTest {
+
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    private final PrintStream logger = new PrintStream(log, true);
+
+    @Before
+    public void setUp() {
+        LabelStore.get().clear();
+    }
+
+    @After
+    public void tearDown() {
+        LabelStore.get().clear();
+    }
+
+    @Test
+    public void testReturnsStoredLabels() throws Exception {
+        GitHubSCMSource source = mock(GitHubSCMSource.class);
+        when(source.getRepoOwner()).thenReturn("step");
+        when(source.getRepository()).thenReturn("repo1");
+        PullRequestSCMHead head = mock(PullRequestSCMHead.class);
+        when(head.getNumber()).thenReturn(9);
+        LabelStore.get().put(new PullRequestKey("github.com", "step", "repo1", 9), Arrays.asList("skip-e2e", "deploy-preview"), new Date());
+
+        assertThat(PullRequestLabelsStep.getLabels(source, head, 300, logger)).containsExactly("deploy-preview", "skip-e2e");
+    }
+
+    @Test
+    public void testNoLabelsOutsidePullRequests() throws Exception {
+        assertThat(PullRequestLabelsStep.getLabels(mock(GitHubSCMSource.class), new SCMHead("master"), 300, logger)).isEmpty();
+        assertThat(new String(log.toByteArray(), StandardCharsets.UTF_8)).contains("Not building a GitHub pull request");
+    }
+}
@@ -0,0 +1,107 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedisLabelStorageTest {
+
+    private final PullRequestKey key = new PullRequestKey("github.com", "owner1", "repo1", 12);
+
+    private StubRedisServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubRedisServer();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    private RedisLabelStorage storage() {
+        return new RedisLabelStorage("localhost", server.getPort(), "secret", 2, "test:", 60, 5000);
+    }
+
+    @Test
+    public void testSharedBetweenControllers() throws Exception {
+        LabelStore first = new LabelStore(storage());
+        LabelStore second = new LabelStore(storage());
+        first.put(key, Arrays.asList("label1", "label2"), new Date(1000));
+        first.put(new PullRequestKey("github.com", "owner1", "repo2", 3), Arrays.asList("label3"), new Date(1000));
+        assertThat(first.isPersistent()).isTrue();
+
+        assertThat(second.getIfPresent(key)).containsExactly("label1", "label2");
+        assertThat(second.snapshot("github.com", "owner1", "repo1")).containsOnlyKeys(12);
+        assertThat(second.size()).isEqualTo(2);
+
+        second.invalidate(key);
+        assertThat(first.getIfPresent(key)).isNull();
+    }
+
+    @Test
+    public void testComputeRetriesOnConcurrentUpdate() throws Exception {
+        RedisLabelStorage storage = storage();
+        AtomicInteger calls = new AtomicInteger();
+        LabelStore.Entry computed = storage.compute(key, cached -> {
+            if (calls.incrementAndGet() == 1) {
+                server.touch("test:" + key);
+            }
+            return new LabelStore.Entry(Arrays.asList("label1"), 1000, 2000);
+        });
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(computed.getLabels()).containsExactly("label1");
+
+        LabelStore.Entry stored = storage.get(key);
+        assertThat(stored.getLabels()).containsExactly("label1");
+        assertThat(stored.getUpdatedAtMillis()).isEqualTo(1000);
+        assertThat(stored.getStoredAt()).isEqualTo(2000);
+    }
+
+    @Test
+    public void testFailsOpen() throws Exception {
+        LabelStore store = new LabelStore(storage());
+        store.put(key, Arrays.asList("label1"), new Date(1000));
+        server.close();
+
+        assertThat(store.getIfPresent(key)).isNull();
+        store.put(key, Arrays.asList("label2"), new Date(2000));
+        assertThat(store.update(key, Arrays.asList("label3"), new Date(3000))).isTrue();
+        assertThat(store.getIfPresent(key)).isNull();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    public void testSkipsUnreachableServer() throws Exception {
+        AtomicInteger connections = new AtomicInteger();
+        try (ServerSocket dropping = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread thread = new Thread(() -> {
+                while (!dropping.isClosed()) {
+                    try (Socket socket = dropping.accept()) {
+                        connections.incrementAndGet();
+                    } catch (Exception e) {
+                        return;
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            RedisLabelStorage storage = new RedisLabelStorage("localhost", dropping.getLocalPort(), "secret", 0, "test:", 60, 5000);
+
+            assertThat(storage.get(key)).isNull();
+            assertThat(storage.get(key)).isNull();
+            storage.put(key, new LabelStore.Entry(Arrays.asList("label1"), 1000, 2000));
+            assertThat(connections.get()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * An in-process server of the Redis protocol, with the commands used by {@link RedisLabelStorage}.
+ */
+class StubRedisServer implements Closeable {
+
+    private final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "StubRedisServer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, byte[]> values = new TreeMap<>();
+
+    private final Map<String, Long> versions = new HashMap<>();
+
+    private final AtomicInteger commands = new AtomicInteger();
+
+    StubRedisServer() throws IOException {
+        executor.submit(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    sockets.add(socket);
+                    executor.submit(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    int getCommands() {
+        return commands.get();
+    }
+
+    /**
+     * Simulates a write of another client.
+     */
+    synchronized void touch(String key) {
+        versions.merge(key, 1L, Long::sum);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        executor.shutdownNow();
+    }
+
+    private void serve(Socket socket) {
+        Map<String, Long> watched = new HashMap<>();
+        List<List<String>> queued = null;
+        try (Socket s = socket) {
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = new BufferedOutputStream(s.getOutputStream());
+            while (true) {
+                List<byte[]> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                commands.incrementAndGet();
+                String name = new String(command.get(0), StandardCharsets.UTF_8).toUpperCase();
+                if (queued != null && !name.equals("EXEC")) {
+                    List<String> arguments = new ArrayList<>();
+                    for (byte[] argument : command) {
+                        arguments.add(new String(argument, StandardCharsets.ISO_8859_1));
+                    }
+                    queued.add(arguments);
+                    simple(out, "QUEUED");
+                } else if (name.equals("MULTI")) {
+                    queued = new ArrayList<>();
+                    simple(out, "OK");
+                } else if (name.equals("EXEC")) {
+                    List<List<String>> transaction = queued;
+                    queued = null;
+                    synchronized (this) {
+                        boolean changed = watched.entrySet().stream()
+                                .anyMatch(entry -> !entry.getValue().equals(versions.getOrDefault(entry.getKey(), 0L)));
+                        watched.clear();
+                        if (changed) {
+                            out.write("*-1\r\n".getBytes(StandardCharsets.US_ASCII));
+                        } else {
+                            out.write(("*" + transaction.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                            for (List<String> queuedCommand : transaction) {
+                                List<byte[]> arguments = new ArrayList<>();
+                                for (String argument : queuedCommand) {
+                                    arguments.add(argument.getBytes(StandardCharsets.ISO_8859_1));
+                                }
+                                execute(arguments, out);
+                            }
+                        }
+                    }
+                } else if (name.equals("WATCH")) {
+                    synchronized (this) {
+                        String key = new String(command.get(1), StandardCharsets.UTF_8);
+                        watched.put(key, versions.getOrDefault(key, 0L));
+                    }
+                    simple(out, "OK");
+                } else if (name.equals("UNWATCH")) {
+                    watched.clear();
+                    simple(out, "OK");
+                } else {
+                    synchronized (this) {
+                        execute(command, out);
+                    }
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the client went away
+        }
+    }
+
+    private void execute(List<byte[]> command, OutputStream out) throws IOException {
+        String name = new String(command.get(0), StandardCharsets.UTF_8).toUpperCase();
+        switch (name) {
+            case "PING":
+                simple(out, "PONG");
+                break;
+            case "AUTH":
+            case "SELECT":
+                simple(out, "OK");
+                break;
+            case "GET":
+                bulk(out, values.get(key(command, 1)));
+                break;
+            case "SET":
+                values.put(key(command, 1), command.get(2));
+                touch(key(command, 1));
+                simple(out, "OK");
+                break;
+            case "DEL":
+                boolean removed = values.remove(key(command, 1)) != null;
+                touch(key(command, 1));
+                out.write((":" + (removed ? 1 : 0) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                break;
+            case "MGET":
+                out.write(("*" + (command.size() - 1) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                for (int i = 1; i < command.size(); i++) {
+                    bulk(out, values.get(key(command, i)));
+                }
+                break;
+            case "SCAN":
+                Pattern pattern = glob(key(command, 3));
+                out.write("*2\r\n".getBytes(StandardCharsets.US_ASCII));
+                bulk(out, "0".getBytes(StandardCharsets.US_ASCII));
+                List<String> keys = new ArrayList<>();
+                for (String key : values.keySet()) {
+                    if (pattern.matcher(key).matches()) {
+                        keys.add(key);
+                    }
+                }
+                out.write(("*" + keys.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                for (String key : keys) {
+                    bulk(out, key.getBytes(StandardCharsets.UTF_8));
+                }
+                break;
+            default:
+                out.write(("-ERR unknown command '" + name + "'\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static String key(List<byte[]> command, int index) {
+        return new String(command.get(index), StandardCharsets.UTF_8);
+    }
+
+    private static Pattern glob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static void simple(OutputStream out, String reply) throws IOException {
+        out.write(("+" + reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void bulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(value);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type < 0) {
+            return null;
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<byte[]> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            in.read();
+            int length = Integer.parseInt(readLine(in));
+            byte[] argument = new byte[length];
+            int read = 0;
+            while (read < length) {
+                read += in.read(argument, read, length - read);
+            }
+            readLine(in);
+            command.add(argument);
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c < 0) {
+                throw new IOException("Connection closed");
+            }
+            line.write(c);
+        }
+        in.read();
+        return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+    }
+}
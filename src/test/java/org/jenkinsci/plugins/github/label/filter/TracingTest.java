@@ -0,0 +1,103 @@
+package org.jenkinsci.plugins.github.label.filter;
+
+import net.sf.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GHLabel;
+import org.kohsuke.github.GHPullRequest;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TracingTest {
+
+    private final List<Tracing.Span> spans = new ArrayList<>();
+
+    private Tracing.Exporter previous;
+
+    @Before
+    public void setUp() {
+        previous = Tracing.setExporter(spans::add);
+    }
+
+    @After
+    public void tearDown() {
+        Tracing.setExporter(previous);
+        LabelStore.get().clear();
+    }
+
+    @Test
+    public void testSpans() throws Exception {
+        PullRequestKey key = new PullRequestKey("github.com", "owner1", "repo1", 7);
+        GHLabel label = mock(GHLabel.class);
+        when(label.getName()).thenReturn("label1");
+        GHPullRequest pullRequest = mock(GHPullRequest.class);
+        when(pullRequest.getHtmlUrl()).thenReturn(new URL("https://github.com/owner1/repo1/pull/7"));
+        when(pullRequest.getLabels()).thenReturn(Collections.singletonList(label));
+        Tracing.Span root = Tracing.startTrace("webhook").setAttribute(Tracing.REPOSITORY, "owner1/repo1");
+        try (Tracing.Span parse = Tracing.start("parse")) {
+            assertThat(Tracing.current()).isSameAs(parse);
+        }
+        assertThat(Tracing.current()).isSameAs(root);
+        try (Tracing.Span filter = Tracing.startFilterDecision(PullRequestLabelsMatchAnyFilterTrait.class, 7)) {
+            BaseGithubExtendedFilterTrait.fetchLabels(pullRequest, null);
+            filter.setAttribute("excluded", false);
+        }
+        root.close();
+        root.close();
+        assertThat(Tracing.current().isRecording()).isFalse();
+        assertThat(Tracing.start("orphan").isRecording()).isFalse();
+
+        assertThat(spans).extracting(Tracing.Span::getName).containsExactly("parse", "labels", "filter", "webhook");
+        assertThat(spans).extracting(Tracing.Span::getTraceId).containsOnly(root.getTraceId());
+        assertThat(root.getTraceId()).hasSize(32);
+        assertThat(root.getParentSpanId()).isNull();
+        assertThat(spans.get(0).getParentSpanId()).isEqualTo(root.getSpanId());
+        assertThat(spans.get(1).getParentSpanId()).isEqualTo(spans.get(2).getSpanId());
+        assertThat(spans.get(1).getAttributes()).containsEntry("source", "listing").containsEntry(Tracing.PULL_REQUEST, key.toString());
+        assertThat(spans.get(2).getAttributes()).containsEntry(Tracing.PULL_REQUEST, 7).containsEntry("excluded", false);
+        assertThat(root.getEndEpochNanos()).isGreaterThanOrEqualTo(spans.get(2).getEndEpochNanos());
+    }
+
+    @Test
+    public void testDisabled() {
+        Tracing.setExporter(null);
+        try (Tracing.Span root = Tracing.startTrace("webhook")) {
+            assertThat(root.isRecording()).isFalse();
+            assertThat(Tracing.start("parse").setAttribute(Tracing.PULL_REQUEST, 7).isRecording()).isFalse();
+            assertThat(Tracing.startFilterDecision(PullRequestLabelsMatchAnyFilterTrait.class, 7).isRecording()).isFalse();
+        }
+        assertThat(spans).isEmpty();
+    }
+
+    @Test
+    public void testFilterDecisionStartsTraceDuringScan() {
+        try (Tracing.Span filter = Tracing.startFilterDecision(PullRequestLabelsMatchAnyFilterTrait.class, 7)) {
+            assertThat(Tracing.current()).isSameAs(filter);
+        }
+        assertThat(spans).extracting(Tracing.Span::getName).containsExactly("filter");
+        assertThat(spans.get(0).getParentSpanId()).isNull();
+        assertThat(Tracing.current().isRecording()).isFalse();
+    }
+
+    @Test
+    public void testLogsJson() {
+        try (Tracing.Span root = Tracing.startTrace("poll")) {
+            root.setAttribute(Tracing.PULL_REQUESTS, Arrays.asList(3, 5)).setAttribute("projects", 2);
+        }
+        JSONObject span = JSONObject.fromObject(spans.get(0).toString());
+        assertThat(span.getString("name")).isEqualTo("poll");
+        assertThat(span.getString("traceId")).isEqualTo(spans.get(0).getTraceId());
+        assertThat(span.has("parentSpanId")).isFalse();
+        assertThat(span.getJSONObject("attributes").getString(Tracing.PULL_REQUESTS)).isEqualTo("3,5");
+        assertThat(span.getJSONObject("attributes").getInt("projects")).isEqualTo(2);
+    }
+}